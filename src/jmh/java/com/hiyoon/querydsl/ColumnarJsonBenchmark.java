@@ -0,0 +1,87 @@
+package com.hiyoon.querydsl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.hiyoon.querydsl.support.MemberPageColumnarConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page&lt;MemberTeamDto&gt; 응답 직렬화: Jackson 기본(행마다 객체) vs MemberPageColumnarConverter(컬럼 배열 + 팀 이름 사전).
+ *
+ * 1 op = rows 건짜리 페이지 한 번 직렬화. 각 벤치마크는 응답 바이트 수를 돌려준다.
+ * gc.alloc.rate.norm 은 build.gradle 의 jmh { profilers = ['gc'] } 로 함께 출력된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColumnarJsonBenchmark {
+
+    @Param({"20", "1000", "10000"})
+    private int rows;
+
+    @Param({"10"})
+    private int teams;
+
+    private Page<MemberTeamDto> page;
+    private ObjectMapper objectMapper;
+    private MemberPageColumnarConverter converter;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+    private final HttpOutputMessage message = new HttpOutputMessage() {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return out;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        List<MemberTeamDto> content = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % teams + 1;
+            content.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, rows), rows * 10L);
+        objectMapper = new ObjectMapper();
+        converter = new MemberPageColumnarConverter(objectMapper);
+    }
+
+    @Benchmark
+    public int jackson() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, page);
+        return out.size();
+    }
+
+    @Benchmark
+    public int columnar() throws IOException {
+        out.reset();
+        converter.write(page, page.getClass(), MemberPageColumnarConverter.APPLICATION_COLUMNAR_JSON, message);
+        return out.size();
+    }
+}
@@ -0,0 +1,90 @@
+package com.hiyoon.querydsl;
+
+import com.hiyoon.querydsl.dto.MemberDto;
+import com.hiyoon.querydsl.dto.MemberQueryProjectionDto;
+import com.hiyoon.querydsl.dto.QMemberQueryProjectionDto;
+import com.hiyoon.querydsl.dto.UserDto;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+
+/**
+ * DTO 조회 방식별(Projections.bean / fields / constructor / @QueryProjection) row 변환 비용.
+ *
+ * Querydsl 은 Hibernate 가 돌려준 row(Object[]) 를 FactoryExpression.newInstance 로 DTO 로 바꾼다.
+ * DB 왕복 비용을 빼고 그 변환만 rows 건 반복해서 잰다. (1 op = rows 건 변환, row 당 비용은 rows 로 나눈다)
+ * gc.alloc.rate.norm 은 build.gradle 의 jmh { profilers = ['gc'] } 로 함께 출력된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private Object[][] resultSet;
+
+    private FactoryExpression<MemberDto> bean;
+    private FactoryExpression<MemberDto> fields;
+    private FactoryExpression<UserDto> fieldsWithAlias;
+    private FactoryExpression<MemberDto> constructor;
+    private FactoryExpression<MemberQueryProjectionDto> queryProjection;
+
+    @Setup
+    public void setUp() {
+        resultSet = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            resultSet[i] = new Object[]{"member" + i, i % 100};
+        }
+
+        bean = Projections.bean(MemberDto.class, member.username, member.age);
+        fields = Projections.fields(MemberDto.class, member.username, member.age);
+        fieldsWithAlias = Projections.fields(UserDto.class, member.username.as("name"), member.age);
+        constructor = Projections.constructor(MemberDto.class, member.username, member.age);
+        queryProjection = new QMemberQueryProjectionDto(member.username, member.age);
+    }
+
+    @Benchmark
+    public void bean(Blackhole bh) {
+        project(bean, bh);
+    }
+
+    @Benchmark
+    public void fields(Blackhole bh) {
+        project(fields, bh);
+    }
+
+    @Benchmark
+    public void fieldsWithAlias(Blackhole bh) {
+        project(fieldsWithAlias, bh);
+    }
+
+    @Benchmark
+    public void constructor(Blackhole bh) {
+        project(constructor, bh);
+    }
+
+    @Benchmark
+    public void queryProjection(Blackhole bh) {
+        project(queryProjection, bh);
+    }
+
+    private void project(FactoryExpression<?> projection, Blackhole bh) {
+        for (Object[] row : resultSet) {
+            bh.consume(projection.newInstance(row));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.hiyoon.querydsl;
+
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.repository.MemberJpaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 전체 엔티티 조회: 쓰기 트랜잭션에서 관리 엔티티로 읽을 때(managed)와 findAll 읽기 전용 모드(readOnly) 비교.
+ *
+ * managed 는 예전 findAll 과 같다. 엔티티마다 dirty checking 스냅샷을 만들고, 커밋할 때 flush 로 전부 비교한다.
+ * readOnly 는 스냅샷과 커밋 시 flush 비교가 없다.
+ * 1 op = rows 건 조회 + 커밋. 힙 차이는 gc.alloc.rate.norm(op 당 할당 바이트)으로 본다. (build.gradle 의 jmh { profilers = ['gc'] })
+ * managedCommit/readOnlyCommit 은 조회는 매 호출 전(Level.Invocation)에 끝내 두고 flush + 커밋만 잰다.
+ * (gc 프로파일러는 호출 전 준비의 할당도 같이 세므로 이 둘의 gc.alloc.rate.norm 은 조회 + 커밋 값이다)
+ * 데이터는 local 프로필 초기화(member.init.members = rows)로 H2 메모리 DB 에 넣는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyQueryBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private MemberJpaRepository memberJpaRepository;
+    private PlatformTransactionManager transactionManager;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                // 명령행 인자로 넘겨야 application.yml 의 값(member.init.members 등)보다 우선한다.
+                .run(
+                        "--spring.main.web-application-type=none",
+                        "--spring.profiles.active=local",
+                        "--member.init.members=" + rows,
+                        "--member.index-advisor.enabled=false",
+                        "--member.team-statistics.check.enabled=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.org.hibernate.SQL=warn");
+        em = context.getBean(EntityManager.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        transactionManager = context.getBean(PlatformTransactionManager.class);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int managed() {
+        return transactionTemplate.execute(status -> {
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            return members.size();
+        });
+    }
+
+    @Benchmark
+    public int readOnly() {
+        return memberJpaRepository.findAll().size();
+    }
+
+    @Benchmark
+    public void managedCommit(ManagedLoaded loaded) {
+        transactionManager.commit(loaded.status);
+    }
+
+    @Benchmark
+    public void readOnlyCommit(ReadOnlyLoaded loaded) {
+        transactionManager.commit(loaded.status);
+    }
+
+    /**
+     * 쓰기 트랜잭션을 열고 rows 건을 관리 엔티티로 읽어 둔다.
+     */
+    @State(Scope.Thread)
+    public static class ManagedLoaded {
+
+        TransactionStatus status;
+
+        @Setup(Level.Invocation)
+        public void load(ReadOnlyQueryBenchmark benchmark) {
+            status = benchmark.transactionManager.getTransaction(new DefaultTransactionDefinition());
+            benchmark.em.createQuery("select m from Member m", Member.class).getResultList();
+        }
+    }
+
+    /**
+     * readOnly 트랜잭션을 열고 findAll 로 rows 건을 읽어 둔다.
+     */
+    @State(Scope.Thread)
+    public static class ReadOnlyLoaded {
+
+        TransactionStatus status;
+
+        @Setup(Level.Invocation)
+        public void load(ReadOnlyQueryBenchmark benchmark) {
+            DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+            definition.setReadOnly(true);
+            status = benchmark.transactionManager.getTransaction(definition);
+            benchmark.memberJpaRepository.findAll();
+        }
+    }
+}
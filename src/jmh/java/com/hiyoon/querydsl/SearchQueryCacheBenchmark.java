@@ -0,0 +1,80 @@
+package com.hiyoon.querydsl;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.hiyoon.querydsl.repository.MemberJpaRepository;
+import com.hiyoon.querydsl.repository.MemberSearchQueryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * search 한 번의 요청당 비용: 매번 Querydsl 표현식 트리를 만들고 JPQL 로 직렬화할 때(builder)와
+ * 모양별로 만들어 둔 JPQL 에 값만 바인딩할 때(cached) 비교.
+ *
+ * 둘 다 JIT 이 끝난 뒤의 값이라 MemberSearchQueryCache 의 첫 컴파일 시간(콜드)과 달리 실제 요청당 차이다.
+ * 결과가 1건인 조건으로 DB 비용을 줄이고, 같은 읽기 전용 트랜잭션 안에서 잰다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchQueryCacheBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchQueryCache searchQueryCache;
+    private TransactionTemplate readOnlyTransaction;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                // 명령행 인자로 넘겨야 application.yml 의 값(member.init.members 등)보다 우선한다.
+                .run(
+                        "--spring.main.web-application-type=none",
+                        "--spring.profiles.active=local",
+                        "--member.init.members=1000",
+                        "--member.index-advisor.enabled=false",
+                        "--member.team-statistics.check.enabled=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.org.hibernate.SQL=warn");
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        searchQueryCache = context.getBean(MemberSearchQueryCache.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        condition = new MemberSearchCondition();
+        condition.setUsername("member500");
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(90);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> builder() {
+        return readOnlyTransaction.execute(status -> memberJpaRepository.searchByBuilder(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> cached() {
+        return readOnlyTransaction.execute(status -> searchQueryCache.search(condition));
+    }
+}
@@ -0,0 +1,71 @@
+package com.hiyoon.querydsl.config;
+
+import com.hiyoon.querydsl.support.ReadWriteRoutingDataSource;
+import com.hiyoon.querydsl.support.ReplicaStickiness;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * member.datasource.routing.enabled=true 면 primary / replica 두 풀을 만들고 읽기 전용 트랜잭션을 replica 로 보낸다.
+ * p6spy 는 라우팅 DataSource(routingDataSource)만 감싸도록 나머지는 decorator.datasource.exclude-beans 에 넣는다.
+ * (SQL 은 한 번만 잡힌다) 특히 맨 바깥 lazyDataSource 를 감싸면 p6spy 가 커넥션을 받자마자 getMetaData 를 불러
+ * 트랜잭션의 readOnly 가 동기화되기 전에 실제 커넥션을 고르게 되므로 읽기 전용도 전부 primary 로 간다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("member.datasource.primary")
+    public HikariDataSource primaryDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("member.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    // Clock 빈이 있으면 그것으로 window 를 센다. (테스트에서 시간을 직접 넘기기 위함)
+    @Bean
+    public ReplicaStickiness replicaStickiness(@Value("${member.datasource.routing.sticky-window:2s}") Duration window,
+                                               ObjectProvider<Clock> clock) {
+        return new ReplicaStickiness(window, clock.getIfAvailable(Clock::systemUTC));
+    }
+
+    @Bean
+    public DataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                        @Qualifier("replicaDataSource") DataSource replica,
+                                        ReplicaStickiness stickiness,
+                                        ObjectProvider<MeterRegistry> registry) {
+        return new ReadWriteRoutingDataSource(primary, replica, stickiness, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource lazyDataSource(@Qualifier("routingDataSource") DataSource routing) {
+        // 기본값을 정해 두지 않으면 LazyConnectionDataSourceProxy 가 기동할 때 커넥션을 하나 열어서 확인한다.
+        LazyConnectionDataSourceProxy lazy = new LazyConnectionDataSourceProxy();
+        lazy.setTargetDataSource(routing);
+        lazy.setDefaultAutoCommit(true);
+        lazy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        lazy.afterPropertiesSet();
+        return lazy;
+    }
+}
@@ -0,0 +1,52 @@
+package com.hiyoon.querydsl.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate 2차 캐시(JCache + Caffeine, 프로세스 로컬) 설정.
+ * 자주 읽고 거의 바뀌지 않는 Team 과 팀 이름 조회 쿼리만 캐시한다.
+ * Member 는 대량 수정/삭제/넣기가 잦아 캐시하지 않고, 그래서 Team.members 컬렉션도 캐시하지 않는다.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    // 엔티티의 @Cache(region = ...) 과 TeamRepository 의 쿼리 힌트에서 쓰는 이름
+    public static final String TEAM_REGION = "team";
+    public static final String TEAM_QUERY_REGION = "team.query";
+
+    // Hibernate 기본 쿼리 캐시 영역
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${member.team-cache.maximum-size:10000}") long maximumSize) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        cacheManager.createCache(TEAM_REGION, sizeBounded(maximumSize));
+        cacheManager.createCache(TEAM_QUERY_REGION, sizeBounded(maximumSize));
+        cacheManager.createCache(QUERY_RESULTS_REGION, sizeBounded(maximumSize));
+        // 테이블별 마지막 수정 시각이라 쿼리 캐시 정합성을 위해 크기 제한을 두지 않는다.
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, sizeBounded(null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private CaffeineConfiguration<Object, Object> sizeBounded(Long maximumSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maximumSize == null ? OptionalLong.empty() : OptionalLong.of(maximumSize));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
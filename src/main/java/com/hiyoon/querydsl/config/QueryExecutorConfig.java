@@ -0,0 +1,59 @@
+package com.hiyoon.querydsl.config;
+
+import com.hiyoon.querydsl.support.BoundedQueryExecutor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class QueryExecutorConfig {
+
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * 페이징 검색의 count 쿼리를 content 쿼리와 동시에 실행하는 실행기.
+     * content 는 호출 스레드가, count 는 이 풀이 커넥션을 하나씩 더 잡으므로 커넥션 풀의 절반까지만 쓴다. (poolSize)
+     * 대기열이 차면 호출 스레드에서 그대로 실행한다. (순차 실행으로 돌아갈 뿐 실패하지 않음)
+     */
+    @Bean
+    public BoundedQueryExecutor pageCountExecutor(@Value("${member.page-count-executor.threads:4}") int threads,
+                                                  @Value("${member.page-count-executor.queue-capacity:50}") int queueCapacity,
+                                                  @Value("${spring.datasource.hikari.maximum-pool-size:10}") int defaultPoolSize,
+                                                  ObjectProvider<HikariDataSource> pools) {
+        int boundedThreads = Math.max(1, Math.min(threads, poolSize(pools, defaultPoolSize) / 2));
+        return new BoundedQueryExecutor("page-count", boundedThreads, queueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * MemberController 의 비동기(/async) 조회를 실행하는 실행기. 톰캣 요청 스레드는 DB 를 기다리지 않고 바로 반환된다.
+     * 대기열이 차면 RejectedExecutionException -> 503 으로 바로 거절해서 요청이 끝없이 쌓이지 않게 한다.
+     */
+    @Bean
+    public BoundedQueryExecutor memberQueryExecutor(@Value("${member.query-executor.threads:8}") int threads,
+                                                    @Value("${member.query-executor.queue-capacity:100}") int queueCapacity,
+                                                    @Value("${spring.datasource.hikari.maximum-pool-size:10}") int defaultPoolSize,
+                                                    ObjectProvider<HikariDataSource> pools) {
+        int boundedThreads = Math.max(1, Math.min(threads, poolSize(pools, defaultPoolSize)));
+        return new BoundedQueryExecutor("member-query", boundedThreads, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 실행기 작업이 커넥션을 얻는 풀의 크기.
+     * 라우팅을 켜면 primary / replica 풀이 HikariDataSource 빈으로 있다. 읽기 전용이라도 쓰기 직후(sticky)에는
+     * primary 로 가므로 둘 중 작은 쪽에 맞춘다. 라우팅을 끄면 기본 풀(p6spy 로 감싸져 있음)의 설정값을 쓴다.
+     */
+    private static int poolSize(ObjectProvider<HikariDataSource> pools, int defaultPoolSize) {
+        return pools.stream()
+                .mapToInt(HikariDataSource::getMaximumPoolSize)
+                // 설정하지 않으면 -1 이고 풀이 뜰 때 Hikari 기본값(10)이 된다.
+                .map(size -> size > 0 ? size : HIKARI_DEFAULT_POOL_SIZE)
+                .min()
+                .orElse(defaultPoolSize);
+    }
+}
@@ -0,0 +1,37 @@
+package com.hiyoon.querydsl.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hiyoon.querydsl.support.MemberPageColumnarConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.accept.ContentNegotiationStrategy;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    // Accept 헤더 대신 ?format=columnar 로도 고를 수 있게 한다.
+    // favorParameter 는 모든 엔드포인트에서 모르는 format 값을 406 으로 돌려주므로 columnar 만 보고 나머지 값은 무시한다.
+    @Override
+    public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+        configurer.strategies(List.of(
+                request -> MemberPageColumnarConverter.FORMAT.equals(request.getParameter("format"))
+                        ? List.of(MemberPageColumnarConverter.APPLICATION_COLUMNAR_JSON)
+                        : ContentNegotiationStrategy.MEDIA_TYPE_ALL_LIST,
+                new HeaderContentNegotiationStrategy()));
+    }
+
+    // application/*+json 을 받는 Jackson 보다 앞에 둔다.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new MemberPageColumnarConverter(objectMapper));
+    }
+}
@@ -1,41 +1,196 @@
 package com.hiyoon.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.dto.MemberCursorPage;
 import com.hiyoon.querydsl.dto.MemberSearchCondition;
 import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.hiyoon.querydsl.repository.MemberImporter;
 import com.hiyoon.querydsl.repository.MemberJpaRepository;
 import com.hiyoon.querydsl.repository.MemberRepository;
+import com.hiyoon.querydsl.support.BoundedQueryExecutor;
+import com.hiyoon.querydsl.support.MemberDataVersion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String TEXT_CSV = "text/csv";
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final BoundedQueryExecutor memberQueryExecutor;
+    private final MemberImporter memberImporter;
+    private final MemberDataVersion dataVersion;
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, WebRequest request) {
+        if (notModified(request, "v1", condition.normalized())) {
+            return null;
+        }
         return memberJpaRepository.search(condition);
     }
 
+    // v1 과 같은 결과를 한 줄에 한 건씩(NDJSON) 조회하는 대로 바로 내려준다. 결과 건수와 상관없이 메모리 사용량이 일정하다.
+    @GetMapping(value = "/v1/members/stream", produces = APPLICATION_NDJSON)
+    public void searchMemberV1Stream(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        // 건마다 flush 하지 않고 응답 버퍼가 찰 때마다 청크로 내보낸다.
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            memberJpaRepository.searchStream(condition, dto -> {
+                try {
+                    writer.writeValue(generator, dto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeRaw('\n');
+        }
+    }
+
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(request, "v2", condition.normalized(), pageable)) {
+            return null;
+        }
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(request, "v3", condition.normalized(), pageable)) {
+            return null;
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
 
     @GetMapping("/v4/members")
-    public Page<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(request, "v4", condition.normalized(), pageable)) {
+            return null;
+        }
         return memberRepository.searchPageExcutionUtils(condition, pageable);
     }
+
+    // v4 와 같지만 content 쿼리와 count 쿼리를 동시에 실행한다.
+    @GetMapping("/v6/members")
+    public Page<MemberTeamDto> searchMemberV6(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(request, "v6", condition.normalized(), pageable)) {
+            return null;
+        }
+        return memberRepository.searchPageConcurrent(condition, pageable);
+    }
+
+    // page 번호 대신 이전 응답의 nextCursor 로 다음 조각을 조회한다. (정렬: memberId, age, username)
+    @GetMapping("/v5/members")
+    public MemberCursorPage searchMemberV5(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           Pageable pageable, WebRequest request) {
+        if (notModified(request, "v5", condition.normalized(), cursor, pageable)) {
+            return null;
+        }
+        try {
+            return memberRepository.searchByCursor(condition, cursor, pageable);
+        } catch (InvalidDataAccessApiUsageException e) {
+            // 잘못된 커서나 커서 페이징이 지원하지 않는 정렬 (리포지토리 예외 변환으로 IllegalArgumentException 이 감싸져 온다)
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getCause().getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    // 비동기 버전: 조회는 memberQueryExecutor 에서 하고 톰캣 요청 스레드는 바로 반환된다.
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1Async(MemberSearchCondition condition) {
+        return memberQueryExecutor.submit(() -> memberJpaRepository.search(condition));
+    }
+
+    @GetMapping("/v2/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2Async(MemberSearchCondition condition, Pageable pageable) {
+        return memberQueryExecutor.submit(() -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    @GetMapping("/v3/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3Async(MemberSearchCondition condition, Pageable pageable) {
+        return memberQueryExecutor.submit(() -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @GetMapping("/v4/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV4Async(MemberSearchCondition condition, Pageable pageable) {
+        return memberQueryExecutor.submit(() -> memberRepository.searchPageExcutionUtils(condition, pageable));
+    }
+
+    // 요청 본문(CSV, 헤더 username,age[,team_name])을 읽는 대로 넣는다. charset 이 없으면 UTF-8
+    @PostMapping(value = "/members/import", consumes = TEXT_CSV)
+    public MemberBulkResult importMembers(HttpServletRequest request) throws IOException {
+        Charset charset = request.getCharacterEncoding() == null
+                ? StandardCharsets.UTF_8 : Charset.forName(request.getCharacterEncoding());
+        try {
+            return memberImporter.importCsv(new InputStreamReader(request.getInputStream(), charset));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 조회 전에 데이터 버전 + 요청 값으로 ETag 를 만든다. If-None-Match 가 같으면 DB 를 거치지 않고 304 로 끝낸다.
+     * (true 면 핸들러는 null 을 반환한다. 아니면 응답에 ETag 를 붙이고 조회한다)
+     * 같은 조회라도 응답 형식(Accept, ?format=columnar)이 다르면 다른 ETag 다.
+     * 응답 형식이 Accept 에 따라 달라지므로 공유 캐시가 섞어 쓰지 않도록 304 를 포함해 Vary: Accept 를 붙인다.
+     */
+    private boolean notModified(WebRequest request, Object... params) {
+        HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        String representation = request.getHeader(HttpHeaders.ACCEPT) + ";" + request.getParameter("format");
+        return request.checkNotModified(dataVersion.etag(representation, Arrays.asList(params)));
+    }
+
+    // 실행기 대기열이 가득 찼으면 기다리게 하지 않고 바로 돌려보낸다.
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> rejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
 }
@@ -0,0 +1,34 @@
+package com.hiyoon.querydsl.controller;
+
+import com.hiyoon.querydsl.dto.TeamStatisticsDto;
+import com.hiyoon.querydsl.service.TeamStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatisticsService teamStatisticsService;
+
+    // 팀별 회원 수/나이 합계/평균/최소/최대 (member 를 집계하지 않고 team_statistics 에서 읽는다)
+    @GetMapping("/teams/statistics")
+    public List<TeamStatisticsDto> statistics() {
+        return teamStatisticsService.findAll();
+    }
+
+    // 실제 집계와 다른 팀 id
+    @GetMapping("/teams/statistics/check")
+    public List<Long> check() {
+        return teamStatisticsService.check();
+    }
+
+    @PostMapping("/teams/statistics/rebuild")
+    public int rebuild() {
+        return teamStatisticsService.rebuild();
+    }
+}
@@ -3,13 +3,19 @@ package com.hiyoon.querydsl.controller;
 import com.hiyoon.querydsl.entity.Member;
 import com.hiyoon.querydsl.entity.Team;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 @Profile("local")
 @Component
@@ -23,22 +29,112 @@ public class initMember {
         initMemberService.init();
     }
 
+    /**
+     * member.init.* 설정만큼 회원/팀을 만든다.
+     * chunk-size 건마다 트랜잭션을 나누고, flush-size 건마다 flush/clear 해서 JDBC batch insert 로 내보낸다.
+     */
+    @Slf4j
     @Component
-    static class InitMemberService{
+    static class InitMemberService {
         @PersistenceContext
         private EntityManager em;
 
-        @Transactional
+        private final TransactionTemplate transactionTemplate;
+
+        @Value("${member.init.members:100}")
+        private int members;
+        // 팀별 가중치. 1,1 이면 teamA, teamB 에 번갈아 배정한다.
+        @Value("${member.init.team-weights:1,1}")
+        private int[] teamWeights;
+        @Value("${member.init.chunk-size:10000}")
+        private int chunkSize;
+        @Value("${member.init.flush-size:500}")
+        private int flushSize;
+
+        InitMemberService(PlatformTransactionManager transactionManager) {
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+        }
+
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
+            validate();
+            long start = System.nanoTime();
+
+            List<Long> teamIds = transactionTemplate.execute(status -> createTeams());
+            int[] teamSlots = teamSlots();
+            for (int from = 0; from < members; from += chunkSize) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(from + chunkSize, members);
+                transactionTemplate.executeWithoutResult(status -> createMembers(chunkFrom, chunkTo, teamIds, teamSlots));
+            }
+
+            long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            log.info("init members={} teams={} in {}ms ({} rows/s)",
+                    members, teamIds.size(), elapsedMillis, members * 1_000L / elapsedMillis);
+        }
+
+        // 0 이면 chunk 반복이 끝나지 않거나(chunk-size) 0 으로 나누게 되므로(flush-size, team-weights) 기동할 때 막는다.
+        private void validate() {
+            if (members < 0) {
+                throw new IllegalStateException("member.init.members 는 0 이상이어야 합니다. members=" + members);
+            }
+            if (chunkSize < 1) {
+                throw new IllegalStateException("member.init.chunk-size 는 1 이상이어야 합니다. chunk-size=" + chunkSize);
+            }
+            if (flushSize < 1) {
+                throw new IllegalStateException("member.init.flush-size 는 1 이상이어야 합니다. flush-size=" + flushSize);
+            }
+            if (Arrays.stream(teamWeights).anyMatch(weight -> weight < 0)
+                    || Arrays.stream(teamWeights).sum() < 1) {
+                throw new IllegalStateException("member.init.team-weights 는 0 이상이고 합이 1 이상이어야 합니다. team-weights="
+                        + Arrays.toString(teamWeights));
+            }
+        }
 
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
+        private List<Long> createTeams() {
+            List<Long> teamIds = new ArrayList<>();
+            for (int i = 0; i < teamWeights.length; i++) {
+                Team team = new Team(teamName(i));
+                em.persist(team);
+                teamIds.add(team.getId());
             }
+            return teamIds;
+        }
+
+        private void createMembers(int from, int to, List<Long> teamIds, int[] teamSlots) {
+            List<Team> teams = teamReferences(teamIds);
+            for (int i = from; i < to; i++) {
+                Team selectedTeam = teams.get(teamSlots[i % teamSlots.length]);
+                em.persist(new Member("member" + i, i % 100, selectedTeam));
+
+                if ((i - from + 1) % flushSize == 0) {
+                    em.flush();
+                    em.clear();
+                    teams = teamReferences(teamIds);
+                }
+            }
+        }
+
+        private List<Team> teamReferences(List<Long> teamIds) {
+            List<Team> teams = new ArrayList<>();
+            for (Long teamId : teamIds) {
+                teams.add(em.getReference(Team.class, teamId));
+            }
+            return teams;
+        }
+
+        // 가중치만큼 팀 번호를 펼쳐 둔다. ex) 3,1 -> [0, 0, 0, 1]
+        private int[] teamSlots() {
+            List<Integer> slots = new ArrayList<>();
+            for (int team = 0; team < teamWeights.length; team++) {
+                for (int w = 0; w < teamWeights[team]; w++) {
+                    slots.add(team);
+                }
+            }
+            return slots.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private String teamName(int index) {
+            return index < 26 ? "team" + (char) ('A' + index) : "team" + (index + 1);
         }
     }
 }
@@ -0,0 +1,14 @@
+package com.hiyoon.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberBulkResult {
+    private final long rows;
+    private final int chunks;
+    private final long elapsedMillis;
+
+    public long getRowsPerSecond() {
+        return rows * 1_000L / Math.max(1, elapsedMillis);
+    }
+}
@@ -0,0 +1,13 @@
+package com.hiyoon.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberCursorPage {
+    private final List<MemberTeamDto> content;
+    // 다음 조각을 조회할 때 그대로 넘겨주는 값 (마지막 조각이면 null)
+    private final String nextCursor;
+    private final boolean hasNext;
+}
@@ -0,0 +1,22 @@
+package com.hiyoon.querydsl.dto;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+
+@Data
+public class MemberExportResult {
+    private final Path file;
+    private final long rows;
+    // 파일에 쓴 바이트 (gzip 이면 압축 후 크기)
+    private final long bytes;
+    private final long elapsedMillis;
+
+    public long getRowsPerSecond() {
+        return rows * 1_000L / Math.max(1, elapsedMillis);
+    }
+
+    public long getBytesPerSecond() {
+        return bytes * 1_000L / Math.max(1, elapsedMillis);
+    }
+}
@@ -0,0 +1,62 @@
+package com.hiyoon.querydsl.entity;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * bulkDelete 작업의 진행 위치. 배치를 지울 때 같은 트랜잭션에서 함께 갱신하므로
+ * 중간에 죽어도 같은 jobName 으로 다시 실행하면 마지막으로 커밋된 member_id 다음부터 이어서 지운다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberDeleteCheckpoint {
+
+    @Id
+    private String jobName;
+    private String username;
+    private String teamName;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    // 여기까지(포함) 지웠다.
+    private long lastMemberId;
+    private long deletedRows;
+    private boolean completed;
+    private LocalDateTime updatedAt;
+
+    public MemberDeleteCheckpoint(String jobName, MemberSearchCondition condition) {
+        this.jobName = jobName;
+        this.username = condition.getUsername();
+        this.teamName = condition.getTeamName();
+        this.ageGoe = condition.getAgeGoe();
+        this.ageLoe = condition.getAgeLoe();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public boolean matches(MemberSearchCondition condition) {
+        return Objects.equals(username, condition.getUsername())
+                && Objects.equals(teamName, condition.getTeamName())
+                && Objects.equals(ageGoe, condition.getAgeGoe())
+                && Objects.equals(ageLoe, condition.getAgeLoe());
+    }
+
+    public void advance(long lastMemberId, long rows) {
+        this.lastMemberId = lastMemberId;
+        this.deletedRows += rows;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.completed = true;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,22 +1,30 @@
 package com.hiyoon.querydsl.entity;
 
+import com.hiyoon.querydsl.config.HibernateCacheConfig;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.TEAM_REGION)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
 @ToString(of = {"id", "name"})
 public class Team {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
     @Column(name = "team_id")
     private Long id;
     private String name;
+    // Member 는 캐시하지 않으므로 컬렉션도 캐시하지 않는다. (캐시된 id 목록으로 회원을 한 건씩 다시 읽게 된다)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
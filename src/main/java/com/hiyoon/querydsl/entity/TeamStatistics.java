@@ -0,0 +1,29 @@
+package com.hiyoon.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 팀별 회원 수/나이 합계/최소/최대. 평균은 합계 / 회원 수.
+ * Member 쓰기 때마다 TeamStatisticsListener 가 같은 트랜잭션에서 갱신하고, 벌크 연산 뒤에는 TeamStatisticsService 가 다시 만든다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStatistics {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin;
+    private Integer ageMax;
+}
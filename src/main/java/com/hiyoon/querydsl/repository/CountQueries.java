@@ -0,0 +1,182 @@
+package com.hiyoon.querydsl.repository;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * content 쿼리에서 count 쿼리를 만든다. (손으로 count 쿼리를 따로 쓰다가 join 이나 조건이 어긋나는 것을 막는다)
+ *
+ * - select 는 count(countBy) (content 가 distinct 면 count(distinct countBy)), order by / offset / limit 은 뺀다.
+ * - to-one 연관 leftJoin(member.team, team) 은 행 수를 바꾸지 않으므로 where 나 남은 join 이 그 alias 를 쓰지 않으면 뺀다.
+ * - inner join, 컬렉션 join, 엔티티 join(on) 은 행 수가 달라질 수 있어서 그대로 둔다. fetch join 은 일반 join 으로 바꾼다.
+ * - group by 가 있으면 JPQL 로는 그룹 수를 셀 수 없어서 만들지 않는다.
+ */
+final class CountQueries {
+
+    private CountQueries() {
+    }
+
+    static JPAQuery<Long> derive(JPAQueryFactory queryFactory, JPAQuery<?> content, Expression<?> countBy) {
+        QueryMetadata source = content.getMetadata();
+        if (!source.getGroupBy().isEmpty()) {
+            throw new IllegalArgumentException("group by 가 있는 쿼리는 count 쿼리를 만들 수 없습니다.");
+        }
+
+        // 뒤쪽 join 부터 보면서 남기는 join 이 쓰는 alias 도 참조된 것으로 센다. (leftJoin(member.team, team).leftJoin(team.x, x))
+        List<JoinExpression> joins = source.getJoins();
+        Set<Expression<?>> referenced = new HashSet<>();
+        collectRoots(source.getWhere(), referenced);
+        boolean[] keep = new boolean[joins.size()];
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            keep[i] = !isToOneLeftJoin(join) || referenced.contains(alias(join));
+            if (keep[i]) {
+                collectRoots(join.getTarget(), referenced);
+                collectRoots(join.getCondition(), referenced);
+            }
+        }
+
+        JPAQuery<Long> count = queryFactory.select(Expressions.numberOperation(Long.class,
+                source.isDistinct() ? Ops.AggOps.COUNT_DISTINCT_AGG : Ops.AggOps.COUNT_AGG, countBy));
+        QueryMetadata metadata = count.getMetadata();
+        for (int i = 0; i < joins.size(); i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            JoinExpression join = joins.get(i);
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH) && !flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES)) {
+                    metadata.addJoinFlag(flag);
+                }
+            }
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        source.getParams().forEach((param, value) -> setParam(metadata, param, value));
+        return count;
+    }
+
+    static long fetch(JPAQuery<Long> countQuery) {
+        Long total = countQuery.fetchOne();
+        return total == null ? 0 : total;
+    }
+
+    // leftJoin(member.team, team) 처럼 to-one 연관 경로에 alias 를 붙인 join
+    private static boolean isToOneLeftJoin(JoinExpression join) {
+        if (join.getType() != JoinType.LEFTJOIN || !isAlias(join.getTarget())) {
+            return false;
+        }
+        Expression<?> association = ((Operation<?>) join.getTarget()).getArg(0);
+        return association instanceof Path
+                && ((Path<?>) association).getMetadata().getParent() != null
+                && !(association instanceof CollectionExpression)
+                && !(association instanceof MapExpression);
+    }
+
+    private static Expression<?> alias(JoinExpression join) {
+        return ((Operation<?>) join.getTarget()).getArg(1);
+    }
+
+    private static boolean isAlias(Expression<?> target) {
+        return target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Expression<?>> roots) {
+        if (expression != null) {
+            expression.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    /**
+     * 식에 나오는 경로의 root(alias)를 모은다. (team.name -> team)
+     */
+    private static final class RootCollector implements Visitor<Void, Set<Expression<?>>> {
+
+        private static final RootCollector INSTANCE = new RootCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> collectRoots(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> collectRoots(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Expression<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        // 서브쿼리가 바깥 alias 를 쓰는 경우(member.team.id = team.id 등)도 참조로 센다.
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            collectRoots(metadata.getProjection(), roots);
+            collectRoots(metadata.getWhere(), roots);
+            collectRoots(metadata.getHaving(), roots);
+            metadata.getGroupBy().forEach(groupBy -> collectRoots(groupBy, roots));
+            for (JoinExpression join : metadata.getJoins()) {
+                collectRoots(join.getTarget(), roots);
+                collectRoots(join.getCondition(), roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Expression<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collectRoots((Expression<?>) arg, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.MemberDeleteCheckpoint;
+import com.hiyoon.querydsl.support.MemberBulkWriteEvent;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+
+/**
+ * MemberSearchCondition 에 맞는 회원을 member_id 순서로 batch-size 건씩 지운다.
+ * 배치마다 별도 트랜잭션으로 커밋하고 그 사이에 쉬어서(pause, rows-per-second) 다른 조회가 밀리지 않게 한다.
+ * 진행 위치는 MemberDeleteCheckpoint 에 배치와 같은 트랜잭션으로 남긴다.
+ */
+@Slf4j
+@Component
+public class MemberBulkDeleter {
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberDeleteCheckpointRepository checkpointRepository;
+    private final TransactionTemplate batchTransaction;
+    private final int batchSize;
+    private final long rowsPerSecond;
+    private final Duration pause;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MemberBulkDeleter(EntityManager em, MemberDeleteCheckpointRepository checkpointRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${member.bulk.delete.batch-size:1000}") int batchSize,
+                             @Value("${member.bulk.delete.rows-per-second:0}") long rowsPerSecond,
+                             @Value("${member.bulk.delete.pause:100ms}") Duration pause,
+                             ApplicationEventPublisher eventPublisher) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.checkpointRepository = checkpointRepository;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.rowsPerSecond = rowsPerSecond;
+        this.pause = pause;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 같은 jobName 이 있으면 그 체크포인트 다음부터 이어서 지운다. 조건이 다르면 예외, 이미 끝난 작업이면 아무것도 하지 않는다.
+     */
+    public MemberBulkResult delete(String jobName, MemberSearchCondition searchCondition) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("배치마다 따로 커밋하므로 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        long start = System.nanoTime();
+
+        MemberSearchCondition condition = searchCondition.normalized();
+        MemberDeleteCheckpoint checkpoint = batchTransaction.execute(status -> checkpointRepository.findById(jobName)
+                .orElseGet(() -> checkpointRepository.save(new MemberDeleteCheckpoint(jobName, condition))));
+        if (!checkpoint.matches(condition)) {
+            throw new IllegalStateException("같은 jobName 으로 다른 조건의 삭제가 기록되어 있습니다. checkpoint=" + checkpoint);
+        }
+        if (checkpoint.getLastMemberId() > 0) {
+            log.info("bulk delete job={} resumes after member_id={} deleted={}",
+                    jobName, checkpoint.getLastMemberId(), checkpoint.getDeletedRows());
+        }
+
+        Predicate[] where = MemberBulkUpdater.predicates(condition);
+        long rows = 0;
+        int batches = 0;
+        try {
+            while (!checkpoint.isCompleted()) {
+                long batchStart = System.nanoTime();
+                long afterId = checkpoint.getLastMemberId();
+                long deletedBefore = checkpoint.getDeletedRows();
+                checkpoint = batchTransaction.execute(status -> deleteBatch(jobName, afterId, where));
+                if (checkpoint.isCompleted()) {
+                    break;
+                }
+
+                long deleted = checkpoint.getDeletedRows() - deletedBefore;
+                rows += deleted;
+                batches++;
+                log.info("bulk delete job={} batch={} up to member_id={} rows={} total={} ({} rows/s)",
+                        jobName, batches, checkpoint.getLastMemberId(), deleted, checkpoint.getDeletedRows(),
+                        rows * 1_000L / elapsedMillis(start));
+                throttle(deleted, batchStart);
+            }
+        } finally {
+            // 커밋된 배치가 있으면 중간에 실패(중단)해도 알린다. 이전 실행이 지우고 알리기 전에 멈췄을 수 있으므로
+            // 이번에 지운 것이 없어도 체크포인트에 지운 기록이 있으면 알린다. (받는 쪽은 다시 만들기만 하므로 여러 번 받아도 된다)
+            if (checkpoint.getDeletedRows() > 0) {
+                eventPublisher.publishEvent(new MemberBulkWriteEvent("bulkDelete", checkpoint.getDeletedRows()));
+            }
+        }
+
+        MemberBulkResult result = new MemberBulkResult(rows, batches, elapsedMillis(start));
+        log.info("bulk delete job={} done rows={} batches={} in {}ms ({} rows/s)",
+                jobName, result.getRows(), result.getChunks(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private MemberDeleteCheckpoint deleteBatch(String jobName, long afterId, Predicate[] where) {
+        MemberDeleteCheckpoint checkpoint = checkpointRepository.findById(jobName)
+                .orElseThrow(() -> new IllegalStateException("체크포인트가 없습니다. jobName=" + jobName));
+
+        List<Long> ids = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.id.gt(afterId))
+                .where(where)
+                .orderBy(member.id.asc())
+                .limit(batchSize)
+                .fetch();
+        if (ids.isEmpty()) {
+            checkpoint.complete();
+            return checkpoint;
+        }
+
+        // 고른 뒤에 조건에서 벗어난 행은 지우지 않도록 조건을 다시 건다.
+        long deleted = queryFactory
+                .delete(member)
+                .where(member.id.in(ids))
+                .where(where)
+                .execute();
+        checkpoint.advance(ids.get(ids.size() - 1), deleted);
+        return checkpoint;
+    }
+
+    // 배치 사이에 최소 pause 만큼, rows-per-second 를 넘지 않을 만큼 쉰다.
+    private void throttle(long rows, long batchStart) {
+        long waitNanos = pause.toNanos();
+        if (rowsPerSecond > 0) {
+            long budgetNanos = TimeUnit.SECONDS.toNanos(1) * rows / rowsPerSecond;
+            waitNanos = Math.max(waitNanos, budgetNanos - (System.nanoTime() - batchStart));
+        }
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("bulk delete 가 중단되었습니다. 같은 jobName 으로 다시 실행하면 이어서 지웁니다.", e);
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    }
+}
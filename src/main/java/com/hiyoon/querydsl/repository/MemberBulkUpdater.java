@@ -0,0 +1,202 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.support.MemberBulkWriteEvent;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static com.hiyoon.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition 에 맞는 회원을 chunk-size 건씩 member_id 순으로 나눠 구간마다 별도 트랜잭션으로 수정한다.
+ * 구간의 끝은 keyset 으로 찾는다. (직전 구간의 마지막 id 다음부터 조건에 맞는 chunk-size 건, MemberBulkDeleter 와 같은 방식)
+ * id 에 빈 곳이 많거나 조건에 맞는 회원이 드문드문 있어도 구간마다 chunk-size 건씩 고르게 나뉜다.
+ * 한 번에 잡는 락과 undo 가 구간 크기로 제한된다. 대신 전체가 원자적이지 않으므로 중간에 실패하면 앞 구간은 커밋된 채로 남는다.
+ * 커밋된 구간이 있으면 실패하더라도 {@link MemberBulkWriteEvent} 를 발행한다.
+ */
+@Slf4j
+@Component
+public class MemberBulkUpdater {
+
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MemberBulkUpdater(EntityManager em, PlatformTransactionManager transactionManager,
+                             @Value("${member.bulk.chunk-size:1000}") int chunkSize,
+                             ApplicationEventPublisher eventPublisher) {
+        this.emf = em.getEntityManagerFactory();
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 바깥 트랜잭션이 같은 행을 잡고 있으면 구간 트랜잭션이 락을 기다리다 멈추므로 트랜잭션 밖에서만 호출할 수 있다.
+     * 끝나면 현재 스레드에 묶인 영속성 컨텍스트(OSIV 등)에 남아 있는 해당 구간의 Member 를 DB 값으로 다시 읽는다.
+     */
+    public MemberBulkResult update(MemberSearchCondition condition, Consumer<JPAUpdateClause> changes) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("구간마다 따로 커밋하므로 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        long start = System.nanoTime();
+
+        Predicate[] where = predicates(condition);
+        long rows = 0;
+        int chunks = 0;
+        Long firstId = null;
+        long lastId = 0;
+        try {
+            while (true) {
+                long afterId = lastId;
+                Chunk chunk = chunkTransaction.execute(status -> updateChunk(afterId, where, changes));
+                if (chunk == null) {
+                    break;
+                }
+                if (firstId == null) {
+                    firstId = chunk.fromId;
+                }
+                lastId = chunk.toId;
+                rows += chunk.rows;
+                chunks++;
+
+                long elapsedMillis = elapsedMillis(start);
+                log.info("bulk update chunk {} ids [{}..{}] rows={} total={} ({} rows/s)",
+                        chunks, chunk.fromId, chunk.toId, chunk.rows, rows, rows * 1_000L / elapsedMillis);
+            }
+        } finally {
+            // 중간에 실패해도 앞 구간은 커밋되어 있으므로 그만큼은 알린다. (MemberImporter 와 같다)
+            if (rows > 0) {
+                eventPublisher.publishEvent(new MemberBulkWriteEvent("bulkUpdate", rows));
+            }
+        }
+        if (firstId == null) {
+            return new MemberBulkResult(0, 0, elapsedMillis(start));
+        }
+
+        refreshManagedMembers(firstId, lastId);
+
+        MemberBulkResult result = new MemberBulkResult(rows, chunks, elapsedMillis(start));
+        log.info("bulk update done rows={} chunks={} in {}ms ({} rows/s)",
+                result.getRows(), result.getChunks(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /**
+     * afterId 다음부터 조건에 맞는 chunk-size 건의 id 를 골라 그 범위를 수정한다. 남은 회원이 없으면 null.
+     */
+    private Chunk updateChunk(long afterId, Predicate[] where, Consumer<JPAUpdateClause> changes) {
+        List<Long> ids = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.id.gt(afterId))
+                .where(where)
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        long fromId = ids.get(0);
+        long toId = ids.get(ids.size() - 1);
+        // 고른 뒤에 조건에서 벗어난 행은 고치지 않도록 조건을 다시 건다.
+        JPAUpdateClause clause = queryFactory
+                .update(member)
+                .where(member.id.between(fromId, toId))
+                .where(where);
+        changes.accept(clause);
+        return new Chunk(fromId, toId, clause.execute());
+    }
+
+    private void refreshManagedMembers(long minId, long maxId) {
+        EntityManager bound = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (bound == null) {
+            return;
+        }
+        List<Member> stale = new ArrayList<>();
+        // 영속성 컨텍스트의 엔티티 항목을 복사본으로 돌면서 관리 중인 Member 만 고른다. (지워진 엔티티는 refresh 할 수 없다)
+        for (Map.Entry<Object, EntityEntry> entry
+                : bound.unwrap(SessionImplementor.class).getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member && entry.getValue().getStatus() == Status.MANAGED) {
+                Long id = (Long) entry.getValue().getId();
+                if (id >= minId && id <= maxId) {
+                    stale.add((Member) entry.getKey());
+                }
+            }
+        }
+        stale.forEach(bound::refresh);
+        log.debug("refreshed {} managed members", stale.size());
+    }
+
+    // update/delete 문에는 join 을 쓸 수 없으므로 teamName 은 서브쿼리로 team_id 를 거른다.
+    static Predicate[] predicates(MemberSearchCondition condition) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (hasText(condition.getUsername())) {
+            predicates.add(member.username.eq(condition.getUsername()));
+        }
+        if (hasText(condition.getTeamName())) {
+            predicates.add(teamNameIn(condition.getTeamName()));
+        }
+        if (condition.getAgeGoe() != null) {
+            predicates.add(member.age.goe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            predicates.add(member.age.loe(condition.getAgeLoe()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private static BooleanExpression teamNameIn(String teamName) {
+        return member.team.id.in(JPAExpressions
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(teamName)));
+    }
+
+    private static long elapsedMillis(long start) {
+        return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static class Chunk {
+        private final long fromId;
+        private final long toId;
+        private final long rows;
+
+        Chunk(long fromId, long toId, long rows) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.rows = rows;
+        }
+    }
+}
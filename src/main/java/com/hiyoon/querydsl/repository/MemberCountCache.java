@@ -0,0 +1,76 @@
+package com.hiyoon.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.support.MemberDataChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 검색의 count 쿼리 결과 캐시.
+ * 정규화한 검색 조건을 키로 ttl 동안 유지하고, Member / Team 쓰기가 일어나면 전부 비운다.
+ * 쓰기 트랜잭션 안에서는 캐시를 거치지 않는다. 아직 커밋 안 된 변경이 반영된 count 를 남에게 주거나,
+ * 반대로 그 트랜잭션에 변경 전 count 를 주지 않기 위함이다. (MemberSearchSingleFlight 와 같은 기준)
+ */
+@Component
+public class MemberCountCache implements MeterBinder {
+
+    private final Cache<MemberSearchCondition, Long> cache;
+    // invalidate 될 때마다 증가. count 하는 사이에 쓰기가 커밋됐으면 그 전 값을 캐시에 넣지 않는다.
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberCountCache(@Value("${member.count-cache.maximum-size:1000}") long maximumSize,
+                            @Value("${member.count-cache.ttl:30s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return countQuery.getAsLong();
+        }
+
+        MemberSearchCondition key = condition.normalized();
+        Long cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // count 쿼리 실행 중 flush 로 invalidate 가 불릴 수 있어서 cache.get(key, loader) 안에서 실행하지 않는다.
+        long before = generation.get();
+        long total = countQuery.getAsLong();
+        if (generation.get() == before) {
+            cache.put(key, total);
+        }
+        return total;
+    }
+
+    @EventListener
+    public void invalidate(MemberDataChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "member.count");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,98 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import lombok.Getter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * keyset 페이징용 커서.
+ * 정렬 키 값과 마지막 member.id 를 담아서 클라이언트에는 불투명한 문자열로만 노출한다.
+ */
+@Getter
+class MemberCursor {
+
+    static final String MEMBER_ID = "memberId";
+    static final String USERNAME = "username";
+    static final String AGE = "age";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long memberId;
+    private final String value;
+
+    private MemberCursor(String property, Sort.Direction direction, Long memberId, String value) {
+        this.property = property;
+        this.direction = direction;
+        this.memberId = memberId;
+        this.value = value;
+    }
+
+    boolean isAscending() {
+        return direction.isAscending();
+    }
+
+    /**
+     * 첫 조각은 pageable 의 정렬을, 이어지는 조각은 커서에 담긴 정렬을 따른다.
+     */
+    static MemberCursor first(Pageable pageable) {
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc(MEMBER_ID));
+        return new MemberCursor(property(order.getProperty()), order.getDirection(), null, null);
+    }
+
+    MemberCursor next(MemberTeamDto last) {
+        String nextValue;
+        switch (property) {
+            case AGE:
+                nextValue = String.valueOf(last.getAge());
+                break;
+            case USERNAME:
+                nextValue = last.getUsername();
+                break;
+            default:
+                nextValue = null;
+        }
+        return new MemberCursor(property, direction, last.getMemberId(), nextValue);
+    }
+
+    boolean isFirst() {
+        return memberId == null;
+    }
+
+    String encode() {
+        String raw = property + ":" + direction + ":" + memberId + ":" + (value == null ? "" : "=" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MemberCursor decode(String cursor, Pageable pageable) {
+        if (!hasText(cursor)) {
+            return first(pageable);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+            String value = parts[3].isEmpty() ? null : parts[3].substring(1);
+            return new MemberCursor(property(parts[0]), Sort.Direction.valueOf(parts[1]), Long.valueOf(parts[2]), value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다. cursor=" + cursor, e);
+        }
+    }
+
+    private static String property(String property) {
+        switch (property) {
+            case "id":
+            case MEMBER_ID:
+                return MEMBER_ID;
+            case USERNAME:
+            case AGE:
+                return property;
+            default:
+                throw new IllegalArgumentException("커서 페이징을 지원하지 않는 정렬 조건입니다. sort=" + property);
+        }
+    }
+}
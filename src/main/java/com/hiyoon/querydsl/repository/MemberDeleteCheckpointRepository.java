@@ -0,0 +1,7 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.entity.MemberDeleteCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MemberDeleteCheckpointRepository extends JpaRepository<MemberDeleteCheckpoint, String> {
+}
@@ -0,0 +1,295 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberExportResult;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static com.hiyoon.querydsl.entity.QTeam.team;
+
+/**
+ * 전체 회원(팀 이름 포함)을 CSV 또는 NDJSON 파일로 내보낸다.
+ *
+ * StatelessSession 으로 member ⟕ team 을 스칼라 컬럼으로만 읽고 FORWARD_ONLY 로 한 행씩 넘기므로
+ * 영속성 컨텍스트도, 엔티티도 쌓이지 않는다. 행은 재사용하는 StringBuilder 에 만들고
+ * 고정 크기 ByteBuffer 로 인코딩해서 FileChannel 에 쓴다. (힙 사용량은 회원 수와 무관)
+ * 다 쓰면 임시 파일을 대상 경로로 옮기므로 읽는 쪽이 쓰다 만 파일을 보지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberExporter {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    static final String CSV_HEADER = "member_id,username,age,team_id,team_name\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long LOG_EVERY = 100_000;
+
+    private final SessionFactory sessionFactory;
+    private final int fetchSize;
+
+    public MemberExporter(EntityManagerFactory emf,
+                          @Value("${member.export.fetch-size:1000}") int fetchSize) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.fetchSize = fetchSize;
+    }
+
+    public MemberExportResult export(Path file, Format format, boolean gzip) {
+        long start = System.nanoTime();
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        long rows = 0;
+        long bytes;
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try (ExportChannel out = new ExportChannel(part, gzip);
+                 ScrollableResults results = new HibernateQuery<Void>(session)
+                         .select(member.id, member.username, member.age, team.id, team.name)
+                         .from(member)
+                         .leftJoin(member.team, team)
+                         .orderBy(member.id.asc())
+                         .setFetchSize(fetchSize)
+                         .setReadOnly(true)
+                         .scroll(ScrollMode.FORWARD_ONLY)) {
+                StringBuilder line = new StringBuilder(256);
+                if (format == Format.CSV) {
+                    out.write(CSV_HEADER);
+                }
+                while (results.next()) {
+                    // 여러 컬럼을 고르면 Querydsl 이 결과 변환기로 행을 Tuple 하나로 묶어 준다.
+                    Object[] row = ((Tuple) results.get(0)).toArray();
+                    line.setLength(0);
+                    if (format == Format.CSV) {
+                        csv(line, row);
+                    } else {
+                        ndjson(line, row);
+                    }
+                    out.write(line);
+
+                    if (++rows % LOG_EVERY == 0) {
+                        long elapsedMillis = elapsedMillis(start);
+                        log.info("export {} rows={} ({} rows/s, {} bytes/s)", file.getFileName(), rows,
+                                rows * 1_000L / elapsedMillis, out.written() * 1_000L / elapsedMillis);
+                    }
+                }
+                bytes = out.finish();
+            } finally {
+                // 읽기만 했으므로 커밋할 것이 없다.
+                tx.rollback();
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(part);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(part);
+            throw e;
+        }
+
+        MemberExportResult result = new MemberExportResult(file, rows, bytes, elapsedMillis(start));
+        log.info("export done {} format={} gzip={} rows={} bytes={} in {}ms ({} rows/s, {} bytes/s)",
+                file, format, gzip, result.getRows(), result.getBytes(), result.getElapsedMillis(),
+                result.getRowsPerSecond(), result.getBytesPerSecond());
+        return result;
+    }
+
+    // member_id,username,age,team_id,team_name (팀이 없으면 빈 칸)
+    private static void csv(StringBuilder line, Object[] row) {
+        line.append(row[0]).append(',');
+        csvString(line, (String) row[1]);
+        line.append(',').append(row[2]).append(',');
+        if (row[3] != null) {
+            line.append(row[3]);
+        }
+        line.append(',');
+        csvString(line, (String) row[4]);
+        line.append('\n');
+    }
+
+    private static void csvString(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    // MemberTeamDto 와 같은 필드 이름
+    private static void ndjson(StringBuilder line, Object[] row) {
+        line.append("{\"memberId\":").append(row[0]).append(",\"username\":");
+        jsonString(line, (String) row[1]);
+        line.append(",\"age\":").append(row[2])
+                .append(",\"teamId\":").append(row[3])
+                .append(",\"teamName\":");
+        jsonString(line, (String) row[4]);
+        line.append("}\n");
+    }
+
+    private static void jsonString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("failed to delete {}", path, e);
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 문자열을 UTF-8 로 고정 크기 버퍼에 인코딩하고 버퍼가 차면 파일(또는 gzip 스트림)로 내보낸다.
+     */
+    private static class ExportChannel implements Closeable {
+
+        private final FileChannel file;
+        private final GZIPOutputStream gzip;
+        private final WritableByteChannel sink;
+        private final ByteBuffer buffer;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        ExportChannel(Path path, boolean gzip) throws IOException {
+            this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            if (gzip) {
+                this.gzip = new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE);
+                this.sink = Channels.newChannel(this.gzip);
+                this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            } else {
+                this.gzip = null;
+                this.sink = file;
+                this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            }
+        }
+
+        void write(CharSequence text) throws IOException {
+            CharBuffer in = CharBuffer.wrap(text);
+            encoder.reset();
+            while (encoder.encode(in, buffer, true).isOverflow()) {
+                drain();
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                drain();
+            }
+        }
+
+        /**
+         * 지금까지 파일에 쓴 바이트 (gzip 이면 압축 후). 진행 로그와 결과가 같은 기준을 쓴다.
+         */
+        long written() throws IOException {
+            return file.position();
+        }
+
+        /**
+         * 남은 버퍼를 모두 쓰고 파일에 쓴 바이트를 돌려준다.
+         */
+        long finish() throws IOException {
+            drain();
+            if (gzip != null) {
+                gzip.finish();
+            }
+            return written();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                sink.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // gzip 스트림을 닫아야 Deflater 의 네이티브 메모리가 풀린다. (파일 채널도 함께 닫힌다)
+            try {
+                if (gzip != null) {
+                    gzip.close();
+                }
+            } finally {
+                file.close();
+            }
+        }
+    }
+}
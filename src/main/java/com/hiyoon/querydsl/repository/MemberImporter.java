@@ -0,0 +1,385 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.hiyoon.querydsl.support.MemberBulkWriteEvent;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static com.hiyoon.querydsl.entity.QTeam.team;
+
+/**
+ * CSV 로 받은 회원을 한 줄씩 읽어서 JDBC batch insert 로 넣는다.
+ *
+ * 헤더에 username, age 가 있어야 하고 team_name 은 있으면 쓴다. (MemberExporter 의 CSV 도 그대로 넣을 수 있다. member_id, team_id 는 새로 매긴다)
+ * 팀 이름 -> team_id 는 시작할 때 한 번 읽어 둔 맵에서 찾고, 없는 팀은 그 자리에서 만든다.
+ * id 는 엔티티와 같은 IdentifierGenerator(시퀀스 50개 단위)에서 받으므로 em.persist 와 겹치지 않는다.
+ * chunk-size 건마다 커밋하므로 중간에 실패하면 앞 chunk 는 남는다. (실패한 줄 번호를 예외 메시지에 담는다)
+ * 영속성 컨텍스트와 엔티티를 거치지 않으므로 끝나면 2차 캐시를 비우고 {@link MemberBulkWriteEvent} 를 발행한다.
+ */
+@Slf4j
+@Component
+public class MemberImporter {
+
+    private static final String INSERT_MEMBER = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+    private static final String INSERT_TEAM = "insert into team (team_id, name) values (?, ?)";
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator memberIdGenerator;
+    private final IdentifierGenerator teamIdGenerator;
+    private final int chunkSize;
+    private final int batchSize;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MemberImporter(EntityManagerFactory emf,
+                          @Value("${member.import.chunk-size:10000}") int chunkSize,
+                          @Value("${member.import.batch-size:500}") int batchSize,
+                          ApplicationEventPublisher eventPublisher) {
+        this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        this.memberIdGenerator = sessionFactory.getMetamodel().entityPersister(Member.class).getIdentifierGenerator();
+        this.teamIdGenerator = sessionFactory.getMetamodel().entityPersister(Team.class).getIdentifierGenerator();
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 파일 이름이 .gz 로 끝나면 gzip 으로 읽는다.
+     */
+    public MemberBulkResult importCsv(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            InputStream source = file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, 64 * 1024) : in;
+            return importCsv(new InputStreamReader(source, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public MemberBulkResult importCsv(Reader reader) {
+        long start = System.nanoTime();
+        CsvReader csv = new CsvReader(reader);
+        Columns columns = new Columns(csv.nextRecord());
+        long rows = 0;
+        int chunks = 0;
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Map<String, Long> teamIds = loadTeamIds(session);
+            boolean more = true;
+            while (more) {
+                Chunk chunk = new Chunk(csv, columns, teamIds, (SharedSessionContractImplementor) session);
+                Transaction tx = session.beginTransaction();
+                try {
+                    more = chunk.insert();
+                    tx.commit();
+                } catch (RuntimeException e) {
+                    tx.rollback();
+                    throw e;
+                }
+                if (chunk.rows == 0) {
+                    break;
+                }
+                // 커밋된 뒤에만 새 팀을 맵에 넣는다. (롤백된 팀 id 를 다음 chunk 가 쓰지 않게)
+                teamIds.putAll(chunk.createdTeams);
+                evictSecondLevelCache();
+                rows += chunk.rows;
+                chunks++;
+
+                long elapsedMillis = elapsedMillis(start);
+                log.info("import chunk {} rows={} newTeams={} total={} ({} rows/s)",
+                        chunks, chunk.rows, chunk.createdTeams.size(), rows, rows * 1_000L / elapsedMillis);
+            }
+        } finally {
+            if (rows > 0) {
+                eventPublisher.publishEvent(new MemberBulkWriteEvent("import", rows));
+            }
+        }
+
+        MemberBulkResult result = new MemberBulkResult(rows, chunks, elapsedMillis(start));
+        log.info("import done rows={} chunks={} in {}ms ({} rows/s)",
+                result.getRows(), result.getChunks(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    // 이름이 같은 팀이 여럿이면 먼저 만든 팀으로
+    private Map<String, Long> loadTeamIds(StatelessSession session) {
+        Map<String, Long> teamIds = new HashMap<>();
+        Transaction tx = session.beginTransaction();
+        try {
+            List<Tuple> teams = new HibernateQuery<Void>(session)
+                    .select(team.name, team.id)
+                    .from(team)
+                    .orderBy(team.id.asc())
+                    .fetch();
+            for (Tuple tuple : teams) {
+                teamIds.putIfAbsent(tuple.get(team.name), tuple.get(team.id));
+            }
+        } finally {
+            tx.rollback();
+        }
+        return teamIds;
+    }
+
+    // JDBC 로 직접 넣은 행은 Hibernate 가 모르므로 쿼리 캐시를 비운다. (새로 만든 팀 때문에 findByName 결과가 바뀐다)
+    private void evictSecondLevelCache() {
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    private static long elapsedMillis(long start) {
+        return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 한 트랜잭션에서 최대 chunk-size 건을 batch-size 단위로 넣는다.
+     */
+    private class Chunk {
+
+        private final CsvReader csv;
+        private final Columns columns;
+        private final Map<String, Long> teamIds;
+        private final SharedSessionContractImplementor session;
+        private final Map<String, Long> createdTeams = new HashMap<>();
+        private int rows;
+
+        Chunk(CsvReader csv, Columns columns, Map<String, Long> teamIds, SharedSessionContractImplementor session) {
+            this.csv = csv;
+            this.columns = columns;
+            this.teamIds = teamIds;
+            this.session = session;
+        }
+
+        /**
+         * @return 아직 읽을 줄이 남았으면 true
+         */
+        boolean insert() {
+            Connection connection = session.connection();
+            try (PreparedStatement insertMember = connection.prepareStatement(INSERT_MEMBER);
+                 PreparedStatement insertTeam = connection.prepareStatement(INSERT_TEAM)) {
+                List<String> record;
+                while (rows < chunkSize && (record = csv.nextRecord()) != null) {
+                    if (record.size() == 1 && record.get(0).isEmpty()) {
+                        continue;
+                    }
+                    String username = columns.username(record);
+                    int age = columns.age(record);
+                    String teamName = columns.teamName(record);
+
+                    insertMember.setLong(1, (Long) memberIdGenerator.generate(session, null));
+                    insertMember.setString(2, username);
+                    insertMember.setInt(3, age);
+                    if (teamName == null) {
+                        insertMember.setNull(4, Types.BIGINT);
+                    } else {
+                        insertMember.setLong(4, teamId(insertTeam, teamName));
+                    }
+                    insertMember.addBatch();
+                    if (++rows % batchSize == 0) {
+                        insertMember.executeBatch();
+                    }
+                }
+                if (rows % batchSize != 0) {
+                    insertMember.executeBatch();
+                }
+                return rows == chunkSize;
+            } catch (SQLException e) {
+                throw session.getJdbcServices().getSqlExceptionHelper()
+                        .convert(e, "member import line " + csv.recordLine());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + csv.recordLine() + ": " + e.getMessage(), e);
+            }
+        }
+
+        // 새 팀은 바로 insert 해서 뒤따르는 member batch 의 FK 보다 먼저 들어가게 한다.
+        private long teamId(PreparedStatement insertTeam, String teamName) throws SQLException {
+            Long teamId = teamIds.get(teamName);
+            if (teamId == null) {
+                teamId = createdTeams.get(teamName);
+            }
+            if (teamId == null) {
+                teamId = (Long) teamIdGenerator.generate(session, null);
+                insertTeam.setLong(1, teamId);
+                insertTeam.setString(2, teamName);
+                insertTeam.executeUpdate();
+                createdTeams.put(teamName, teamId);
+            }
+            return teamId;
+        }
+    }
+
+    /**
+     * 헤더 이름으로 찾은 컬럼 위치.
+     */
+    private static class Columns {
+
+        private final int username;
+        private final int age;
+        private final int teamName;
+
+        Columns(List<String> header) {
+            if (header == null) {
+                throw new IllegalArgumentException("CSV 헤더가 없습니다.");
+            }
+            this.username = header.indexOf("username");
+            this.age = header.indexOf("age");
+            this.teamName = header.indexOf("team_name");
+            if (username < 0 || age < 0) {
+                throw new IllegalArgumentException("CSV 헤더에 username, age 컬럼이 필요합니다. header=" + header);
+            }
+        }
+
+        String username(List<String> record) {
+            String value = field(record, username);
+            return value.isEmpty() ? null : value;
+        }
+
+        int age(List<String> record) {
+            String value = field(record, age).trim();
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("age 가 숫자가 아닙니다. age=" + value);
+            }
+        }
+
+        String teamName(List<String> record) {
+            if (teamName < 0) {
+                return null;
+            }
+            String value = field(record, teamName);
+            return value.isEmpty() ? null : value;
+        }
+
+        private static String field(List<String> record, int index) {
+            if (index >= record.size()) {
+                throw new IllegalArgumentException("컬럼 수가 부족합니다. columns=" + record.size());
+            }
+            return record.get(index);
+        }
+    }
+
+    /**
+     * RFC 4180 CSV 를 한 레코드씩 읽는다. (따옴표 안의 쉼표, 줄바꿈, "" 이스케이프, CRLF)
+     */
+    static class CsvReader {
+
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> record = new ArrayList<>();
+        private long line = 1;
+        private long recordLine;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        long recordLine() {
+            return recordLine;
+        }
+
+        /**
+         * @return 다음 레코드(다음 호출 때 재사용한다), 끝이면 null
+         */
+        List<String> nextRecord() {
+            record.clear();
+            field.setLength(0);
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            if (line == 1 && c == '\uFEFF') {
+                c = read();
+            }
+            recordLine = line;
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("따옴표가 닫히지 않았습니다.");
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    record.add(field.toString());
+                    return record;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() {
+            int c = peek();
+            if (c != -1) {
+                position++;
+            }
+            return c;
+        }
+
+        private int peek() {
+            if (position == limit) {
+                try {
+                    limit = reader.read(buffer, 0, buffer.length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+    }
+}
@@ -6,12 +6,20 @@ import com.hiyoon.querydsl.dto.QMemberTeamDto;
 import com.hiyoon.querydsl.entity.Member;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.graph.GraphSemantic;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.hiyoon.querydsl.entity.QMember.member;
 import static com.hiyoon.querydsl.entity.QTeam.team;
@@ -20,12 +28,23 @@ import static org.springframework.util.StringUtils.hasText;
 @Repository
 public class MemberJpaRepository {
 
+    // 스트리밍/대량 조회시 JDBC 드라이버가 한 번에 가져오는 row 수
+    private static final int FETCH_SIZE = 500;
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final MemberSearchSingleFlight singleFlight;
+    private final TransactionTemplate readOnlyTransaction;
 
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, MemberSearchQueryCache searchQueryCache,
+                               MemberSearchSingleFlight singleFlight, PlatformTransactionManager transactionManager) {
         this.em = em;
         this.queryFactory = queryFactory;
+        this.searchQueryCache = searchQueryCache;
+        this.singleFlight = singleFlight;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     public void save(Member member) {
@@ -37,14 +56,27 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    /**
+     * findAll, findAll_Querydsl, searchMember 는 읽기 전용으로 조회한다.
+     * 읽기 전용 엔티티는 dirty checking 용 스냅샷을 만들지 않고(엔티티당 힙 절반) flush 대상에서도 빠진다.
+     * 이 메서드가 트랜잭션을 시작하면 readOnly 트랜잭션이라 FlushMode.MANUAL 이 되어 조회 전 자동 flush 도 하지 않는다.
+     * (쓰기 트랜잭션 안에서 부르면 아직 flush 안 된 변경이 보이도록 자동 flush 는 그대로 둔다)
+     * 대신 돌려받은 엔티티를 고쳐도 DB 에 반영되지 않는다. (고칠 거면 findById 등으로 다시 읽는다)
+     */
+    @Transactional(readOnly = true)
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FETCH_SIZE, FETCH_SIZE)
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl() {
         return queryFactory
                 .selectFrom(member)
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FETCH_SIZE, FETCH_SIZE)
                 .fetch();
     }
 
@@ -77,7 +109,7 @@ public class MemberJpaRepository {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
 
-        return queryFactory
+        return joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -85,14 +117,25 @@ public class MemberJpaRepository {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(builder)
                 .fetch();
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        // 조건 모양별로 미리 만들어 둔 JPQL 에 값만 바인딩해서 실행한다.
+        // 같은 조건으로 동시에 들어온 호출은 한 번만 조회한다. (기다리는 동안 커넥션을 잡지 않도록 트랜잭션은 그 안에서 시작)
+        return singleFlight.execute("search", condition, null,
+                () -> readOnlyTransaction.execute(status -> searchQueryCache.search(condition)));
+    }
+
+    /**
+     * search 와 같은 조건이지만 결과를 리스트로 모으지 않고 한 건씩 action 에 넘긴다.
+     * 스크롤 커서로 fetch size 만큼씩 읽기 때문에 결과 건수와 상관없이 메모리 사용량이 일정하다.
+     */
+    @Transactional(readOnly = true)
+    public void searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> action) {
+        try (Stream<MemberTeamDto> stream = joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -100,30 +143,63 @@ public class MemberJpaRepository {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
-                .fetch();
+                .setHint(QueryHints.FETCH_SIZE, FETCH_SIZE)
+                .stream()) {
+            stream.forEach(action);
+        }
     }
 
+    @Transactional(readOnly = true)
     public List<Member> searchMember(MemberSearchCondition condition) {
-        return queryFactory
-                .selectFrom(member)
-                .leftJoin(member.team, team)
+        return joinTeam(queryFactory.selectFrom(member), condition.getTeamName())
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FETCH_SIZE, FETCH_SIZE)
+                .fetch();
+    }
+
+    // team 을 fetch join 으로 같이 읽는다. ToOne 이라 페이징을 걸어도 행 수가 늘지 않는다.
+    public List<Member> searchMemberFetchJoin(MemberSearchCondition condition) {
+        return joinTeam(queryFactory.selectFrom(member), condition.getTeamName()).fetchJoin()
                 .where(
                         usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
                 .fetch();
     }
 
+    // 쿼리는 searchMember 그대로 두고 엔티티 그래프(Member.team)로 team 을 같이 읽는다.
+    public List<Member> searchMemberEntityGraph(MemberSearchCondition condition) {
+        return joinTeam(queryFactory.selectFrom(member), condition.getTeamName())
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setHint(GraphSemantic.FETCH.getJpaHintName(), em.getEntityGraph("Member.team"))
+                .fetch();
+    }
+
+    // teamName 이 있으면 inner join 으로 붙인다. (MemberSearchQueryCache.build 와 같다)
+    private static <T> JPAQuery<T> joinTeam(JPAQuery<T> query, String teamName) {
+        return hasText(teamName) ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+
     // predicate -> booleanExpression 으로 변경하는게 좋다. & 여러개 조합 가능
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
@@ -1,11 +1,15 @@
 package com.hiyoon.querydsl.repository;
 
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.dto.MemberCursorPage;
 import com.hiyoon.querydsl.dto.MemberSearchCondition;
 import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MemberRepositoryCustom {
 
@@ -13,4 +17,8 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageExcutionUtils(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDto> searchPageConcurrent(MemberSearchCondition condition, Pageable pageable);
+    MemberCursorPage searchByCursor(MemberSearchCondition condition, String cursor, Pageable pageable);
+    MemberBulkResult bulkUpdate(MemberSearchCondition condition, Consumer<JPAUpdateClause> changes);
+    MemberBulkResult bulkDelete(String jobName, MemberSearchCondition condition);
 }
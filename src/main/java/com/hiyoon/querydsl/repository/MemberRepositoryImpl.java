@@ -1,20 +1,35 @@
 package com.hiyoon.querydsl.repository;
 
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.dto.MemberCursorPage;
 import com.hiyoon.querydsl.dto.MemberSearchCondition;
 import com.hiyoon.querydsl.dto.MemberTeamDto;
 import com.hiyoon.querydsl.dto.QMemberTeamDto;
-import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.support.BoundedQueryExecutor;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static com.hiyoon.querydsl.entity.QMember.member;
 import static com.hiyoon.querydsl.entity.QTeam.team;
@@ -23,35 +38,82 @@ import static org.springframework.util.StringUtils.hasText;
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate searchTransaction;
+    private final MemberCountCache countCache;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final MemberSearchResultCache resultCache;
+    private final MemberSearchSingleFlight singleFlight;
+    private final Counter countExecuted;
+    private final Counter countSkipped;
+    private final BoundedQueryExecutor pageCountExecutor;
+    private final MemberBulkUpdater bulkUpdater;
+    private final MemberBulkDeleter bulkDeleter;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache, MemberSearchQueryCache searchQueryCache,
+                                MemberSearchResultCache resultCache, MemberSearchSingleFlight singleFlight,
+                                MeterRegistry registry,
+                                BoundedQueryExecutor pageCountExecutor, MemberBulkUpdater bulkUpdater,
+                                MemberBulkDeleter bulkDeleter, PlatformTransactionManager transactionManager) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.searchTransaction = new TransactionTemplate(transactionManager);
+        this.searchTransaction.setReadOnly(true);
+        this.countCache = countCache;
+        this.searchQueryCache = searchQueryCache;
+        this.resultCache = resultCache;
+        this.singleFlight = singleFlight;
+        this.countExecuted = registry.counter("member.page.count", "result", "executed");
+        this.countSkipped = registry.counter("member.page.count", "result", "skipped");
+        this.pageCountExecutor = pageCountExecutor;
+        this.bulkUpdater = bulkUpdater;
+        this.bulkDeleter = bulkDeleter;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        // 조건 모양별로 미리 만들어 둔 JPQL 에 값만 바인딩해서 실행한다.
+        return resultCache.get("search", condition, null,
+                () -> shared("search", condition, null, () -> searchQueryCache.search(condition)));
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        return resultCache.get("searchPageSimple", condition, pageable,
+                () -> shared("searchPageSimple", condition, pageable, () -> fetchPageSimple(condition, pageable)));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return resultCache.get("searchPageComplex", condition, pageable,
+                () -> shared("searchPageComplex", condition, pageable, () -> fetchPageComplex(condition, pageable)));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageExcutionUtils(MemberSearchCondition condition, Pageable pageable) {
+        return resultCache.get("searchPageExcutionUtils", condition, pageable,
+                () -> shared("searchPageExcutionUtils", condition, pageable, () -> fetchPageExcutionUtils(condition, pageable)));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageConcurrent(MemberSearchCondition condition, Pageable pageable) {
+        // content / count 가 각자 트랜잭션을 열므로 그대로 합친다.
+        return resultCache.get("searchPageConcurrent", condition, pageable,
+                () -> singleFlight.execute("searchPageConcurrent", condition, pageable, () -> fetchPageConcurrent(condition, pageable)));
+    }
+
+    /**
+     * 캐시에 없으면 같은 검색을 동시에 하는 호출과 조회를 합친다.
+     * 기다리는 호출이 커넥션을 잡지 않도록 읽기 전용 트랜잭션(바깥 트랜잭션이 있으면 참여)은 조회하는 쪽에서만 시작한다.
+     */
+    private <T> T shared(String method, MemberSearchCondition condition, Pageable pageable, Supplier<T> query) {
+        return singleFlight.execute(method, condition, pageable, () -> searchTransaction.execute(status -> query.get()));
+    }
+
+    private Page<MemberTeamDto> fetchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        QueryResults<MemberTeamDto> results = joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -59,8 +121,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
@@ -76,9 +137,74 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         return new PageImpl<>(content, pageable, total);
     }
 
-    @Override
-    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+    private Page<MemberTeamDto> fetchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = searchQuery(condition);
+        // count 쿼리는 content 쿼리에서 만든다. (teamName 조건이 없으면 team join 을 빼고 count(member.id))
+        JPAQuery<Long> countQuery = CountQueries.derive(queryFactory, query, member.id);
+
+        List<MemberTeamDto> content = query
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        long total = countCache.get(condition, () -> CountQueries.fetch(countQuery));
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private Page<MemberTeamDto> fetchPageExcutionUtils(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = searchQuery(condition);
+        JPAQuery<Long> countQuery = CountQueries.derive(queryFactory, query, member.id);
+
+        List<MemberTeamDto> content = query
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        // 성능 최적화 -> 첫번째 마지막 페이지 갯수를 판단해서 조회한다.
+        // count 는 같은 조건으로 최근에 센 값이 있으면 재사용한다.
+        AtomicBoolean counted = new AtomicBoolean();
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            counted.set(true);
+            return countCache.get(condition, () -> CountQueries.fetch(countQuery));
+        });
+        (counted.get() ? countExecuted : countSkipped).increment();
+        return page;
+    }
+
+    /**
+     * content 쿼리와 count 쿼리를 각각 별도의 읽기 전용 트랜잭션(EntityManager, 커넥션)으로 동시에 실행한다.
+     * count 가 필요 없는 페이지면(PageableExecutionUtils) 아직 시작 안 한 count 작업은 취소한다.
+     * 호출한 쪽 트랜잭션과 다른 커넥션을 쓰므로 커밋되지 않은 변경은 보이지 않는다.
+     */
+    private Page<MemberTeamDto> fetchPageConcurrent(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = searchQuery(condition);
+        // 쿼리 객체는 만든 뒤 실행하는 스레드에서만 쓴다. (EntityManager 는 실행하는 스레드의 트랜잭션 것을 쓴다)
+        JPAQuery<Long> countQuery = CountQueries.derive(queryFactory, query, member.id);
+
+        CompletableFuture<Long> total = pageCountExecutor.submit(() -> countCache.get(condition,
+                () -> readOnly(() -> CountQueries.fetch(countQuery))));
+        try {
+            List<MemberTeamDto> content = readOnly(() -> query
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch());
+
+            AtomicBoolean counted = new AtomicBoolean();
+            Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+                counted.set(true);
+                return total.join();
+            });
+            (counted.get() ? countExecuted : countSkipped).increment();
+            return page;
+        } finally {
+            total.cancel(false);
+        }
+    }
+
+    // fetchPageComplex / ExcutionUtils / Concurrent 가 같이 쓰는 content 쿼리 (페이지는 호출하는 쪽에서)
+    private JPAQuery<MemberTeamDto> searchQuery(MemberSearchCondition condition) {
+        return joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -86,36 +212,28 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
-
-        long total = queryFactory
-                .select(member)
-                .from(member)
-//                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetchCount();
+                );
+    }
 
-        return new PageImpl<>(content, pageable, total);
+    // 호출한 쪽 트랜잭션과 상관없이 새 읽기 전용 트랜잭션에서 실행한다. (라우팅을 켜면 replica)
+    private <T> T readOnly(Supplier<T> query) {
+        return readOnlyTransaction.execute(status -> query.get());
     }
 
     @Override
-    public Page<MemberTeamDto> searchPageExcutionUtils(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+    @Transactional(readOnly = true)
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, String cursor, Pageable pageable) {
+        MemberCursor after = MemberCursor.decode(cursor, pageable);
+        int size = pageable.getPageSize();
+
+        // offset 대신 마지막 조회 위치(keyset) 다음부터 읽는다 -> 몇번째 조각이든 비용이 같다.
+        List<MemberTeamDto> rows = joinTeam(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -123,31 +241,87 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        cursorAfter(after)
                 )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .orderBy(cursorOrder(after))
+                .limit(size + 1)
                 .fetch();
 
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+        boolean hasNext = rows.size() > size;
+        List<MemberTeamDto> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? after.next(content.get(size - 1)).encode() : null;
+        return new MemberCursorPage(content, nextCursor, hasNext);
+    }
 
-        // 성능 최적화 -> 첫번째 마지막 페이지 갯수를 판단해서 조회한다.
-        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+    private BooleanExpression cursorAfter(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        boolean asc = cursor.isAscending();
+        Long lastId = cursor.getMemberId();
+        BooleanExpression idAfter = asc ? member.id.gt(lastId) : member.id.lt(lastId);
+
+        switch (cursor.getProperty()) {
+            case MemberCursor.AGE: {
+                int age = Integer.parseInt(cursor.getValue());
+                return (asc ? member.age.gt(age) : member.age.lt(age))
+                        .or(member.age.eq(age).and(idAfter));
+            }
+            case MemberCursor.USERNAME: {
+                // username 은 null 을 항상 마지막에 정렬하므로 null 구간은 id 로만 이어서 읽는다.
+                String username = cursor.getValue();
+                if (username == null) {
+                    return member.username.isNull().and(idAfter);
+                }
+                return (asc ? member.username.gt(username) : member.username.lt(username))
+                        .or(member.username.eq(username).and(idAfter))
+                        .or(member.username.isNull());
+            }
+            default:
+                return idAfter;
+        }
+    }
+
+    private OrderSpecifier<?>[] cursorOrder(MemberCursor cursor) {
+        Order order = cursor.isAscending() ? Order.ASC : Order.DESC;
+        OrderSpecifier<Long> byId = new OrderSpecifier<>(order, member.id);
+
+        switch (cursor.getProperty()) {
+            case MemberCursor.AGE:
+                return new OrderSpecifier<?>[]{new OrderSpecifier<>(order, member.age), byId};
+            case MemberCursor.USERNAME:
+                return new OrderSpecifier<?>[]{
+                        new OrderSpecifier<>(order, member.username, OrderSpecifier.NullHandling.NullsLast), byId};
+            default:
+                return new OrderSpecifier<?>[]{byId};
+        }
+    }
+
+    /**
+     * ex) bulkUpdate(condition, update -> update.set(member.age, member.age.add(1)))
+     */
+    @Override
+    public MemberBulkResult bulkUpdate(MemberSearchCondition condition, Consumer<JPAUpdateClause> changes) {
+        return bulkUpdater.update(condition, changes);
+    }
+
+    /**
+     * 중간에 실패하면 같은 jobName 으로 다시 호출해서 이어서 지운다.
+     */
+    @Override
+    public MemberBulkResult bulkDelete(String jobName, MemberSearchCondition condition) {
+        return bulkDeleter.delete(jobName, condition);
+    }
+
+    // teamName 이 있으면 inner join 으로 붙인다. (MemberSearchQueryCache.build 와 같다)
+    private static <T> JPAQuery<T> joinTeam(JPAQuery<T> query, String teamName) {
+        return hasText(teamName) ? query.join(member.team, team) : query.leftJoin(member.team, team);
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -0,0 +1,136 @@
+package com.hiyoon.querydsl.repository;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * search(condition) 의 where 절 모양(16가지)마다 H2 EXPLAIN 을 떠서 풀 스캔하는 테이블을 찾는다.
+ * member.index-advisor.enabled=true 면 기동할 때 한 번 돌려서 풀 스캔하는 모양을 경고로 남긴다.
+ */
+@Slf4j
+@Component
+public class MemberSearchIndexAdvisor {
+
+    // H2 실행 계획에서 인덱스 없이 읽는 테이블: /* PUBLIC.MEMBER.tableScan */
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*([\\w.]+)\\.tableScan\\s*\\*/");
+
+    private final MemberSearchQueryCache searchQueryCache;
+    private final SessionFactoryImplementor sessionFactory;
+    private final DataSource dataSource;
+    private final boolean enabled;
+
+    public MemberSearchIndexAdvisor(MemberSearchQueryCache searchQueryCache, EntityManagerFactory emf, DataSource dataSource,
+                                    @Value("${member.index-advisor.enabled:false}") boolean enabled) {
+        this.searchQueryCache = searchQueryCache;
+        this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void adviseOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        for (Advice advice : explainAll()) {
+            if (advice.isFullScan()) {
+                log.warn("search shape={} full scan on {}\n{}", advice.getShape(), advice.getScannedTables(), advice.getPlan());
+            } else {
+                log.info("search shape={} uses indexes", advice.getShape());
+            }
+        }
+    }
+
+    /**
+     * 조건이 없는 모양(none)은 풀 스캔이 당연하므로 빼고 나머지 15가지 모양의 실행 계획을 돌려준다.
+     * H2 가 아니면 빈 목록.
+     */
+    public List<Advice> explainAll() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"H2".equals(connection.getMetaData().getDatabaseProductName())) {
+                log.info("index advisor supports H2 only");
+                return Collections.emptyList();
+            }
+            List<Advice> advices = new ArrayList<>();
+            for (MemberSearchShape shape : MemberSearchShape.all()) {
+                if (shape.mask() != 0) {
+                    advices.add(explain(connection, shape));
+                }
+            }
+            return advices;
+        } catch (SQLException e) {
+            throw new IllegalStateException("실행 계획을 가져오지 못했습니다.", e);
+        }
+    }
+
+    private Advice explain(Connection connection, MemberSearchShape shape) throws SQLException {
+        String jpql = searchQueryCache.jpql(shape);
+        String sql = sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                .getSqlStrings()[0];
+
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            // 파라미터는 username, teamName, ageGoe, ageLoe 중 들어온 것만 이 순서대로 있다.
+            int index = 1;
+            if (shape.has(MemberSearchShape.USERNAME)) {
+                statement.setString(index++, "member1");
+            }
+            if (shape.has(MemberSearchShape.TEAM_NAME)) {
+                statement.setString(index++, "teamA");
+            }
+            if (shape.has(MemberSearchShape.AGE_GOE)) {
+                statement.setInt(index++, 10);
+            }
+            if (shape.has(MemberSearchShape.AGE_LOE)) {
+                statement.setInt(index, 40);
+            }
+
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+            return new Advice(shape, plan.toString());
+        }
+    }
+
+    @Getter
+    public static class Advice {
+        private final MemberSearchShape shape;
+        private final String plan;
+        private final Set<String> scannedTables = new LinkedHashSet<>();
+
+        Advice(MemberSearchShape shape, String plan) {
+            this.shape = shape;
+            this.plan = plan;
+            Matcher matcher = TABLE_SCAN.matcher(plan);
+            while (matcher.find()) {
+                scannedTables.add(matcher.group(1));
+            }
+        }
+
+        public boolean isFullScan() {
+            return !scannedTables.isEmpty();
+        }
+    }
+}
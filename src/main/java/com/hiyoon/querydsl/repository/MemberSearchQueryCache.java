@@ -0,0 +1,247 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.hiyoon.querydsl.dto.QMemberTeamDto;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static com.hiyoon.querydsl.entity.QTeam.team;
+
+/**
+ * search(condition) 의 where 절 모양(16가지)별로 JPQL 을 한 번만 만들어 두고 요청마다 값만 바인딩한다.
+ * 요청마다 하던 Querydsl 표현식 트리 생성과 JPQL 직렬화를 건너뛴다.
+ * 아낀 시간(member.search.query.saved)은 요청마다 건너뛴 표현식 트리 생성 + 직렬화 비용의 추정치로 기록한다.
+ * 모양별 처음 한 번의 컴파일 시간은 클래스 로딩, JIT 이 섞인 콜드 값이라 쓰지 않고, sample-every 번째 요청마다
+ * 같은 트리를 한 번 더 만들어 잰 값을 warmup-samples 개 버린 뒤 지수 이동 평균으로 추정한다.
+ * 정확한 요청당 비용 차이는 jmh 의 SearchQueryCacheBenchmark 로 잰다.
+ */
+@Slf4j
+@Component
+public class MemberSearchQueryCache {
+
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    // 추정치에 새 표본을 반영하는 비율
+    private static final double ALPHA = 0.1;
+
+    private final EntityManager em;
+    private final Map<MemberSearchShape, CompiledSearch> compiled = new ConcurrentHashMap<>();
+
+    private final Counter cachedRequests;
+    private final Timer saved;
+    private final int sampleEvery;
+    private final int warmupSamples;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicInteger samples = new AtomicInteger();
+    // 트리 생성 + 직렬화 시간(ns)의 지수 이동 평균. 아직 없으면 NaN
+    private final AtomicLong estimateBits = new AtomicLong(Double.doubleToLongBits(Double.NaN));
+
+    // MeterBinder 로 두면 meterRegistry -> 이 빈 -> entityManagerFactory -> meterRegistry(Hibernate 메트릭) 순환이 생긴다.
+    public MemberSearchQueryCache(EntityManager em, MeterRegistry registry,
+                                  @Value("${member.search.query-cache.sample-every:100}") int sampleEvery,
+                                  @Value("${member.search.query-cache.warmup-samples:10}") int warmupSamples) {
+        this.em = em;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.warmupSamples = warmupSamples;
+        this.cachedRequests = Counter.builder("member.search.query.cached")
+                .description("미리 만들어 둔 JPQL 로 실행한 search 요청 수")
+                .register(registry);
+        this.saved = Timer.builder("member.search.query.saved")
+                .description("미리 만들어 둔 JPQL 로 건너뛴 표현식 트리 생성 + 직렬화 시간 (추정)")
+                .register(registry);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        CompiledSearch search = compiled.computeIfAbsent(shape, this::compile);
+
+        Query query = em.createQuery(search.jpql);
+        search.bind(query, condition);
+        cachedRequests.increment();
+        recordSaved(shape);
+
+        List<?> rows = query.getResultList();
+        return rows.stream()
+                .map(row -> search.projection.newInstance((Object[]) row))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 모양별로 만들어 둔 JPQL. 파라미터는 username, teamName, ageGoe, ageLoe 중 들어온 것만 이 순서대로 있다.
+     */
+    String jpql(MemberSearchShape shape) {
+        return compiled.computeIfAbsent(shape, this::compile).jpql;
+    }
+
+    public long cachedRequests() {
+        return (long) cachedRequests.count();
+    }
+
+    /**
+     * 요청당 건너뛴 트리 생성 + 직렬화 시간 추정치(ns). 워밍업이 끝나기 전이면 NaN
+     */
+    public double estimatedBuildNanos() {
+        return Double.longBitsToDouble(estimateBits.get());
+    }
+
+    private void recordSaved(MemberSearchShape shape) {
+        if (requests.incrementAndGet() % sampleEvery == 0) {
+            long start = System.nanoTime();
+            build(shape, new ArrayList<>(), new ArrayList<>());
+            long buildNanos = System.nanoTime() - start;
+            // 처음 몇 번은 JIT 이 덜 끝난 값이라 버린다.
+            if (samples.incrementAndGet() > warmupSamples) {
+                estimateBits.updateAndGet(bits -> {
+                    double estimate = Double.longBitsToDouble(bits);
+                    double next = Double.isNaN(estimate) ? buildNanos : estimate + ALPHA * (buildNanos - estimate);
+                    return Double.doubleToLongBits(next);
+                });
+            }
+        }
+        double estimate = estimatedBuildNanos();
+        if (!Double.isNaN(estimate)) {
+            saved.record((long) estimate, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private CompiledSearch compile(MemberSearchShape shape) {
+        long start = System.nanoTime();
+
+        // where 절에 추가한 순서가 파라미터 순서가 된다.
+        List<Param<?>> params = new ArrayList<>();
+        List<Function<MemberSearchCondition, Object>> values = new ArrayList<>();
+        Built built = build(shape, params, values);
+        String jpql = built.jpql;
+
+        // Querydsl 버전에 따라 파라미터가 위치(?1) 또는 이름(:username)으로 직렬화되므로 둘 다 처리한다.
+        List<BiConsumer<Query, MemberSearchCondition>> binders = new ArrayList<>();
+        for (Parameter<?> parameter : em.createQuery(jpql).getParameters()) {
+            Integer position = parameter.getPosition();
+            if (position != null) {
+                Function<MemberSearchCondition, Object> value = values.get(position - 1);
+                binders.add((query, condition) -> query.setParameter(position, value.apply(condition)));
+            } else {
+                String name = parameter.getName();
+                Function<MemberSearchCondition, Object> value = values.get(indexOf(params, name));
+                binders.add((query, condition) -> query.setParameter(name, value.apply(condition)));
+            }
+        }
+
+        long buildNanos = System.nanoTime() - start;
+        log.debug("compiled search shape={} in {}us: {}", shape, buildNanos / 1_000, jpql);
+        return new CompiledSearch(jpql, built.projection, binders);
+    }
+
+    /**
+     * 캐시가 없으면 요청마다 하던 일: 표현식 트리를 만들고 JPQL 로 직렬화한다.
+     */
+    private Built build(MemberSearchShape shape, List<Param<?>> params, List<Function<MemberSearchCondition, Object>> values) {
+        QMemberTeamDto projection = new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+        );
+
+        JPAQuery<MemberTeamDto> template = new JPAQuery<>(em)
+                .select(projection)
+                .from(member);
+        // 팀 이름 조건은 팀 없는 회원을 어차피 거르므로 inner join 으로 team(idx_team_name)부터 읽을 수 있게 한다.
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            template.join(member.team, team);
+        } else {
+            template.leftJoin(member.team, team);
+        }
+        if (shape.has(MemberSearchShape.USERNAME)) {
+            template.where(member.username.eq(USERNAME));
+            params.add(USERNAME);
+            values.add(MemberSearchCondition::getUsername);
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            template.where(team.name.eq(TEAM_NAME));
+            params.add(TEAM_NAME);
+            values.add(MemberSearchCondition::getTeamName);
+        }
+        if (shape.has(MemberSearchShape.AGE_GOE)) {
+            template.where(member.age.goe(AGE_GOE));
+            params.add(AGE_GOE);
+            values.add(MemberSearchCondition::getAgeGoe);
+        }
+        if (shape.has(MemberSearchShape.AGE_LOE)) {
+            template.where(member.age.loe(AGE_LOE));
+            params.add(AGE_LOE);
+            values.add(MemberSearchCondition::getAgeLoe);
+        }
+
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(template.getMetadata(), false, null);
+        return new Built(serializer.toString(), projection);
+    }
+
+    private static int indexOf(List<Param<?>> params, String name) {
+        for (int i = 0; i < params.size(); i++) {
+            if (params.get(i).getName().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("알 수 없는 파라미터입니다. name=" + name);
+    }
+
+    private static class Built {
+        private final String jpql;
+        private final FactoryExpression<MemberTeamDto> projection;
+
+        Built(String jpql, FactoryExpression<MemberTeamDto> projection) {
+            this.jpql = jpql;
+            this.projection = projection;
+        }
+    }
+
+    private static class CompiledSearch {
+        private final String jpql;
+        private final FactoryExpression<MemberTeamDto> projection;
+        private final List<BiConsumer<Query, MemberSearchCondition>> binders;
+
+        CompiledSearch(String jpql, FactoryExpression<MemberTeamDto> projection,
+                       List<BiConsumer<Query, MemberSearchCondition>> binders) {
+            this.jpql = jpql;
+            this.projection = projection;
+            this.binders = binders;
+        }
+
+        void bind(Query query, MemberSearchCondition condition) {
+            for (BiConsumer<Query, MemberSearchCondition> binder : binders) {
+                binder.accept(query, condition);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.hiyoon.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.hiyoon.querydsl.support.MemberDataChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * MemberRepositoryCustom 검색 결과 캐시. (member.result-cache.enabled=true 일 때만 사용)
+ *
+ * 키는 메서드 + 정규화한 검색 조건 + pageable 이다.
+ * 전체 row 수(maximum-rows)와 엔트리 수(maximum-entries)를 함께 제한하기 위해
+ * 엔트리 무게를 max(row 수, maximum-rows / maximum-entries) 로 잡는다.
+ * Member / Team 쓰기(엔티티 이벤트, 벌크 update/delete 모두)가 일어나면 전부 비운다.
+ * 쓰기 트랜잭션 안에서는 캐시를 거치지 않는다. (커밋 전 변경이 보이는 결과를 남과 나누지 않는다)
+ *
+ * MemberTeamDto 는 setter 가 있어서 캐시에 둔 객체를 그대로 주면 한 호출자가 고친 값이 다른 호출자에게 보인다.
+ * 그래서 넣을 때와 꺼낼 때 모두 DTO 를 복사해서 준다. (리스트는 고칠 수 없는 리스트)
+ */
+@Component
+public class MemberSearchResultCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final long minimumWeight;
+    private final Cache<Key, Object> cache;
+    // invalidate 될 때마다 증가. 조회하는 사이에 쓰기가 있었으면 결과를 캐시에 넣지 않는다.
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchResultCache(@Value("${member.result-cache.enabled:false}") boolean enabled,
+                                   @Value("${member.result-cache.maximum-entries:1000}") long maximumEntries,
+                                   @Value("${member.result-cache.maximum-rows:100000}") long maximumRows,
+                                   @Value("${member.result-cache.ttl:1m}") Duration ttl) {
+        this.enabled = enabled;
+        this.minimumWeight = Math.max(1, maximumRows / maximumEntries);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumRows)
+                .weigher((Key key, Object value) -> (int) Math.min(Integer.MAX_VALUE, Math.max(rows(value), minimumWeight)))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String method, MemberSearchCondition condition, Pageable pageable, Supplier<T> query) {
+        if (!enabled
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query.get();
+        }
+
+        Key key = new Key(method, condition.normalized(), pageable);
+        Object cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return (T) copy(cached);
+        }
+
+        long before = generation.get();
+        T result = query.get();
+        if (generation.get() == before) {
+            cache.put(key, copy(result));
+        }
+        return result;
+    }
+
+    @EventListener
+    public void invalidate(MemberDataChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "member.search");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof Page) {
+            return ((Page<?>) value).map(MemberSearchResultCache::copyRow);
+        }
+        if (value instanceof List) {
+            return Collections.unmodifiableList(((List<?>) value).stream()
+                    .map(MemberSearchResultCache::copyRow)
+                    .collect(Collectors.toList()));
+        }
+        return value;
+    }
+
+    private static Object copyRow(Object row) {
+        if (row instanceof MemberTeamDto) {
+            MemberTeamDto dto = (MemberTeamDto) row;
+            return new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName());
+        }
+        return row;
+    }
+
+    private static long rows(Object value) {
+        if (value instanceof Page) {
+            return ((Page<?>) value).getNumberOfElements();
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        return 1;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final String method;
+        private final MemberSearchCondition condition;
+        private final Pageable pageable;
+    }
+}
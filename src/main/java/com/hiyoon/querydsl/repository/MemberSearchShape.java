@@ -0,0 +1,86 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition 중 어떤 조건이 들어왔는지(where 절 모양)만 나타낸다.
+ * 조건이 4개라서 모양은 16가지 뿐이다.
+ */
+public final class MemberSearchShape {
+
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+
+    private static final MemberSearchShape[] SHAPES = new MemberSearchShape[16];
+
+    static {
+        for (int mask = 0; mask < SHAPES.length; mask++) {
+            SHAPES[mask] = new MemberSearchShape(mask);
+        }
+    }
+
+    private final int mask;
+
+    private MemberSearchShape(int mask) {
+        this.mask = mask;
+    }
+
+    public static MemberSearchShape of(MemberSearchCondition condition) {
+        int mask = 0;
+        if (hasText(condition.getUsername())) {
+            mask |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            mask |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            mask |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            mask |= AGE_LOE;
+        }
+        return SHAPES[mask];
+    }
+
+    public static List<MemberSearchShape> all() {
+        return new ArrayList<>(Arrays.asList(SHAPES));
+    }
+
+    public boolean has(int condition) {
+        return (mask & condition) != 0;
+    }
+
+    public int mask() {
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        if (mask == 0) {
+            return "none";
+        }
+        StringJoiner joiner = new StringJoiner("+");
+        if (has(USERNAME)) {
+            joiner.add("username");
+        }
+        if (has(TEAM_NAME)) {
+            joiner.add("teamName");
+        }
+        if (has(AGE_GOE)) {
+            joiner.add("ageGoe");
+        }
+        if (has(AGE_LOE)) {
+            joiner.add("ageLoe");
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.support.MemberDataChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 같은 검색(메서드 + 정규화한 검색 조건 + pageable)이 동시에 들어오면 DB 조회는 먼저 온 호출 한 번만 하고
+ * 나머지는 그 결과를 같이 받는다. (대시보드가 새로고침되면서 같은 요청이 한꺼번에 몰릴 때)
+ *
+ * 쓰기 트랜잭션 안에서는 아직 flush 하지 않은 변경이 보여야 하므로 합치지 않고 바로 조회한다.
+ * 기다리는 호출이 커넥션을 잡고 있지 않도록 트랜잭션은 query 안에서 시작해야 한다.
+ * Member / Team 쓰기가 일어나면 진행 중인 조회에는 더 이상 붙지 않는다. (쓰기 뒤에 온 호출은 새로 조회)
+ * 실패하면 기다리던 호출도 같은 예외를 받는다.
+ * 먼저 온 조회가 wait-timeout 안에 끝나지 않으면 기다리던 호출은 더 기다리지 않고 직접 조회한다.
+ */
+@Component
+public class MemberSearchSingleFlight {
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter timedOut;
+
+    public MemberSearchSingleFlight(MeterRegistry registry,
+                                    @Value("${member.search.single-flight.wait-timeout:5s}") Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+        this.executed = registry.counter("member.search.single-flight", "result", "executed");
+        this.coalesced = registry.counter("member.search.single-flight", "result", "coalesced");
+        this.timedOut = registry.counter("member.search.single-flight", "result", "timed-out");
+        registry.gaugeMapSize("member.search.single-flight.in-flight", Tags.empty(), inFlight);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String method, MemberSearchCondition condition, Pageable pageable, Supplier<T> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            executed.increment();
+            return query.get();
+        }
+
+        Key key = new Key(method, condition.normalized(), pageable);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            try {
+                return (T) await(leader);
+            } catch (TimeoutException e) {
+                // 먼저 온 조회가 멈춰 있어도 기다리던 호출까지 묶이지 않게 직접 조회한다.
+                timedOut.increment();
+                return query.get();
+            }
+        }
+
+        executed.increment();
+        T result;
+        try {
+            result = query.get();
+            // 여러 호출이 같은 리스트를 받으므로 고칠 수 없게 한다.
+            if (result instanceof List) {
+                result = (T) Collections.unmodifiableList((List<?>) result);
+            }
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // 끝난 조회에 새 호출이 붙지 않도록 먼저 뺀다.
+        inFlight.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    @EventListener
+    public void invalidate(MemberDataChangedEvent event) {
+        inFlight.clear();
+    }
+
+    private Object await(CompletableFuture<Object> leader) throws TimeoutException {
+        try {
+            return leader.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for in-flight search", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final String method;
+        private final MemberSearchCondition condition;
+        private final Pageable pageable;
+    }
+}
@@ -0,0 +1,19 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.config.HibernateCacheConfig;
+import com.hiyoon.querydsl.entity.Team;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+
+    // 팀 이름 조회는 쿼리 캐시를 탄다. (team 테이블이 바뀌면 Hibernate 가 무효화)
+    @org.springframework.data.jpa.repository.QueryHints({
+            @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = QueryHints.CACHE_REGION, value = HibernateCacheConfig.TEAM_QUERY_REGION)
+    })
+    Optional<Team> findByName(String name);
+}
@@ -0,0 +1,9 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.entity.Team;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface TeamRepositoryCustom {
+    Page<Team> findAllWithMembers(Pageable pageable);
+}
@@ -0,0 +1,58 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static com.hiyoon.querydsl.entity.QTeam.team;
+
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamRepositoryImpl(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    /**
+     * 컬렉션(members)을 fetch join 하면서 offset/limit 을 걸면 Hibernate 가 전부 읽어서 메모리에서 자른다. (HHH000104)
+     * 팀 id 만 먼저 페이징하고, 그 id 들에 대해서만 members 를 fetch join 한다.
+     * (fetch join 없이 팀만 페이징해도 members 는 default_batch_fetch_size 만큼 in 절로 한 번에 읽힌다)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Team> findAllWithMembers(Pageable pageable) {
+        List<Long> ids = queryFactory
+                .select(team.id)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<Team> content = ids.isEmpty() ? Collections.emptyList() : queryFactory
+                .selectFrom(team).distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .where(team.id.in(ids))
+                .orderBy(team.id.asc())
+                // distinct 는 엔티티 중복 제거에만 쓰고 SQL 에는 넣지 않는다.
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .fetch();
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(team.count())
+                .from(team);
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+}
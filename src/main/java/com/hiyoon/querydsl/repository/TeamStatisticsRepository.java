@@ -0,0 +1,7 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.entity.TeamStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TeamStatisticsRepository extends JpaRepository<TeamStatistics, Long> {
+}
@@ -0,0 +1,52 @@
+package com.hiyoon.querydsl.service;
+
+import com.hiyoon.querydsl.repository.MemberExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 매일 밤 전체 회원을 member.export.directory 에 members-yyyyMMdd.csv(.ndjson)[.gz] 로 내보낸다.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "member.export.nightly.enabled", havingValue = "true")
+public class MemberExportJob {
+
+    private final MemberExporter memberExporter;
+    private final Path directory;
+    private final MemberExporter.Format format;
+    private final boolean gzip;
+
+    public MemberExportJob(MemberExporter memberExporter,
+                           @Value("${member.export.directory:export}") String directory,
+                           @Value("${member.export.format:CSV}") MemberExporter.Format format,
+                           @Value("${member.export.gzip:true}") boolean gzip) {
+        this.memberExporter = memberExporter;
+        this.directory = Paths.get(directory);
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    @Scheduled(cron = "${member.export.nightly.cron:0 0 3 * * *}")
+    public void export() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String fileName = "members-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE)
+                + "." + format.name().toLowerCase() + (gzip ? ".gz" : "");
+        memberExporter.export(directory.resolve(fileName), format, gzip);
+    }
+}
@@ -0,0 +1,35 @@
+package com.hiyoon.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 주기적으로 team_statistics 를 실제 집계와 비교해서 어긋난 팀만 다시 구한다.
+ * (QuerydslBasicTest 의 bulkUpdate 처럼 엔티티 이벤트 없이 바뀐 경우를 바로잡는다)
+ * 전체를 지우고 다시 넣는 rebuild 는 진행 중인 쓰기와 부딪힐 수 있어 명시적으로 요청할 때만 쓴다.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "member.team-statistics.check.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class TeamStatisticsCheckJob {
+
+    private final TeamStatisticsService teamStatisticsService;
+
+    @Scheduled(initialDelayString = "${member.team-statistics.check.interval:PT5M}",
+            fixedDelayString = "${member.team-statistics.check.interval:PT5M}")
+    public void checkAndRepair() {
+        List<Long> mismatches = teamStatisticsService.check();
+        if (!mismatches.isEmpty()) {
+            log.warn("team statistics out of sync teams={}, repairing", mismatches);
+            teamStatisticsService.repair(mismatches);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.hiyoon.querydsl.service;
+
+import com.hiyoon.querydsl.dto.QTeamStatisticsDto;
+import com.hiyoon.querydsl.dto.TeamStatisticsDto;
+import com.hiyoon.querydsl.entity.TeamStatistics;
+import com.hiyoon.querydsl.support.MemberBulkWriteEvent;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.hiyoon.querydsl.entity.QTeam.team;
+import static com.hiyoon.querydsl.entity.QTeamStatistics.teamStatistics;
+
+/**
+ * 팀별 통계(team_statistics) 조회, 다시 만들기, 실제 집계와의 정합성 검사.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamStatisticsService {
+
+    // QuerydslBasicTest.group() 과 같은 집계. 회원이 없는 팀도 0 으로 남도록 team 기준 left join
+    private static final String LIVE_AGGREGATE = "select t.team_id, count(m.member_id) member_count, coalesce(sum(m.age), 0) age_sum,"
+            + " min(m.age) age_min, max(m.age) age_max"
+            + " from team t left join member m on m.team_id = t.team_id";
+    private static final String INSERT = "insert into team_statistics (team_id, member_count, age_sum, age_min, age_max) ";
+    // 실제 집계와 저장된 값을 한 문장에서 비교해서 두 번 읽는 사이의 쓰기로 어긋나 보이지 않게 한다.
+    private static final String MISMATCHES = "select l.team_id from (" + LIVE_AGGREGATE + " group by t.team_id) l"
+            + " left join team_statistics s on s.team_id = l.team_id"
+            + " where s.team_id is null or s.member_count <> l.member_count or s.age_sum <> l.age_sum"
+            + " or s.age_min is distinct from l.age_min or s.age_max is distinct from l.age_max"
+            + " union"
+            + " select s.team_id from team_statistics s where not exists (select 1 from team t where t.team_id = s.team_id)";
+    // 팀 하나만 다시 구한다. 행을 지우지 않고 update 하므로 TeamStatisticsListener 의 증분 update 와는 행 락으로 직렬화된다.
+    private static final String RECOMPUTE = "update team_statistics"
+            + " set member_count = (select count(*) from member m where m.team_id = ?),"
+            + " age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = ?),"
+            + " age_min = (select min(m.age) from member m where m.team_id = ?),"
+            + " age_max = (select max(m.age) from member m where m.team_id = ?)"
+            + " where team_id = ?";
+    private static final String DELETE_ORPHAN = "delete from team_statistics"
+            + " where team_id = ? and not exists (select 1 from team t where t.team_id = ?)";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    @Transactional(readOnly = true)
+    public List<TeamStatisticsDto> findAll() {
+        return queryFactory
+                .select(new QTeamStatisticsDto(
+                        teamStatistics.teamId,
+                        team.name,
+                        teamStatistics.memberCount,
+                        teamStatistics.ageSum,
+                        teamStatistics.ageMin,
+                        teamStatistics.ageMax
+                ))
+                .from(teamStatistics)
+                .join(team).on(team.id.eq(teamStatistics.teamId))
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+
+    /**
+     * team_statistics 를 비우고 실제 집계로 다시 채운다.
+     * 먼저 모든 통계 행을 잠가서 진행 중인 증분 update 가 다시 만든 행이 커밋된 뒤에 반영되게 한다.
+     * 통계 행이 없던 팀의 첫 insert 와는 여전히 부딪힐 수 있으므로 주기 검사에서는 {@link #repair} 를 쓴다.
+     */
+    @Transactional
+    public int rebuild() {
+        long start = System.nanoTime();
+        em.createNativeQuery("select team_id from team_statistics for update").getResultList();
+        nativeUpdate("delete from team_statistics");
+        int teams = nativeUpdate(INSERT + LIVE_AGGREGATE + " group by t.team_id");
+        log.info("team statistics rebuilt teams={} in {}ms", teams, (System.nanoTime() - start) / 1_000_000);
+        return teams;
+    }
+
+    /**
+     * 주어진 팀만 실제 집계로 다시 구한다. 없어진 팀의 행은 지우고, 행이 없는 팀은 새로 넣는다.
+     */
+    @Transactional
+    public int repair(Collection<Long> teamIds) {
+        int repaired = 0;
+        for (Long teamId : teamIds) {
+            if (nativeUpdate(DELETE_ORPHAN, teamId, teamId) > 0
+                    || nativeUpdate(RECOMPUTE, teamId, teamId, teamId, teamId, teamId) > 0
+                    || nativeUpdate(INSERT + LIVE_AGGREGATE + " where t.team_id = ? group by t.team_id", teamId) > 0) {
+                repaired++;
+            }
+        }
+        log.info("team statistics repaired teams={}", teamIds);
+        return repaired;
+    }
+
+    /**
+     * 실제 집계와 값이 다른 팀 id. (읽기 전용이 아닌 트랜잭션이라 라우팅을 켜도 primary 에서 비교한다)
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<Long> check() {
+        List<Number> teamIds = em.createNativeQuery(MISMATCHES).getResultList();
+        return teamIds.stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+    }
+
+    @EventListener
+    @Transactional
+    public void onBulkWrite(MemberBulkWriteEvent event) {
+        log.info("rebuild team statistics after {}", event);
+        rebuild();
+    }
+
+    private int nativeUpdate(String sql, Object... parameters) {
+        // team_statistics 만 바꾼다고 알려서 다른 2차 캐시 영역이 비워지지 않게 한다.
+        NativeQuery<?> query = em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(TeamStatistics.class);
+        for (int i = 0; i < parameters.length; i++) {
+            query.setParameter(i + 1, parameters[i]);
+        }
+        return query.executeUpdate();
+    }
+}
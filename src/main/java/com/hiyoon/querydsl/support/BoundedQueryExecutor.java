@@ -0,0 +1,82 @@
+package com.hiyoon.querydsl.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 스레드 수와 대기열 크기가 고정된 DB 작업용 실행기.
+ * 스레드마다 커넥션을 하나씩 잡으므로 스레드 수는 커넥션 풀 크기보다 작게 잡는다.
+ * 대기열 길이, 대기 시간, 거절 건수를 member.executor.* 로 내보내서 밀리는지 볼 수 있다.
+ */
+public class BoundedQueryExecutor implements MeterBinder, DisposableBean {
+
+    private final String name;
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final LongAdder rejected = new LongAdder();
+    private volatile Timer waitTimer;
+
+    public BoundedQueryExecutor(String name, int threads, int queueCapacity,
+                                RejectedExecutionHandler rejectedExecutionHandler) {
+        this.name = name;
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            rejectedExecutionHandler.rejectedExecution(task, pool);
+        });
+        executor.initialize();
+    }
+
+    /**
+     * 거절 정책이 AbortPolicy 면 대기열이 찼을 때 RejectedExecutionException 을 바로 던진다.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long submitted = System.nanoTime();
+        // 제출한 요청/트랜잭션의 SQL 문 수 구간에 함께 센다.
+        Supplier<T> counted = SqlStatementCounter.propagate(task);
+        return CompletableFuture.supplyAsync(() -> {
+            Timer timer = waitTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            }
+            return counted.get();
+        }, executor);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("member.executor.queue", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("name", name)
+                .description("실행을 기다리는 작업 수")
+                .register(registry);
+        Gauge.builder("member.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("member.executor.rejected", rejected, LongAdder::sum)
+                .tag("name", name)
+                .description("대기열이 차서 거절된 작업 수")
+                .register(registry);
+        waitTimer = Timer.builder("member.executor.wait")
+                .tag("name", name)
+                .description("제출부터 실행 시작까지 기다린 시간")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package com.hiyoon.querydsl.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 엔티티 이벤트 없이 member 테이블을 직접 바꾼 벌크 작업(bulkUpdate, bulkDelete 등)이 끝났음을 알리는 이벤트.
+ * 엔티티 쓰기로 갱신하는 파생 데이터(팀 통계)는 이 이벤트를 받으면 다시 만든다.
+ */
+@Getter
+@ToString
+public class MemberBulkWriteEvent {
+
+    private final String operation;
+    private final long rows;
+
+    public MemberBulkWriteEvent(String operation, long rows) {
+        this.operation = operation;
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,39 @@
+package com.hiyoon.querydsl.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link MemberDataChangedEvent} 발행.
+ * 쓰기 시점에 바로 발행하고(같은 트랜잭션의 조회용), 트랜잭션 안이라면 끝난 뒤에 타입별로 한 번 더 발행한다.
+ * (커밋 전에 다른 트랜잭션이 이전 값으로 캐시를 다시 채울 수 있기 때문)
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberDataChangePublisher {
+
+    private static final String RESOURCE_PREFIX = MemberDataChangePublisher.class.getName() + ".";
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void publish(Class<?> entityType) {
+        eventPublisher.publishEvent(new MemberDataChangedEvent(entityType));
+
+        String key = RESOURCE_PREFIX + entityType.getName();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(key)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(key, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                eventPublisher.publishEvent(new MemberDataChangedEvent(entityType));
+            }
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package com.hiyoon.querydsl.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Member / Team 테이블에 쓰기가 일어났음을 알리는 이벤트.
+ * 조회 결과를 들고 있는 캐시들은 이 이벤트를 받으면 비운다.
+ */
+@Getter
+@ToString
+public class MemberDataChangedEvent {
+
+    private final Class<?> entityType;
+
+    public MemberDataChangedEvent(Class<?> entityType) {
+        this.entityType = entityType;
+    }
+}
@@ -0,0 +1,48 @@
+package com.hiyoon.querydsl.support;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member / Team 데이터 버전. {@link MemberDataChangedEvent} 마다 올라간다.
+ * (엔티티 쓰기와 벌크 update/delete, JDBC 직접 쓰기 모두. 쓰는 순간과 커밋 뒤에 한 번씩)
+ *
+ * 조회 전에 읽은 버전으로 ETag 를 만들면 버전이 같은 동안은 같은 조회 결과라고 볼 수 있다.
+ * 조회 중에 쓰기가 끝나면 새 데이터에 이전 버전 ETag 가 붙을 수 있지만 다음 요청에서 다시 조회할 뿐이다.
+ * 프로세스 안의 카운터라 재시작하면 처음부터 다시 세므로 기동 시각을 같이 넣는다.
+ *
+ * 인스턴스 하나로 띄울 때만 맞다. 이벤트는 쓰기가 일어난 프로세스에서만 발행되므로 인스턴스가 여러 개면
+ * 다른 인스턴스의 쓰기로는 이 버전이 오르지 않고, 이 인스턴스는 바뀐 데이터에도 같은 ETag 로 304 를 돌려준다.
+ * 여러 인스턴스로 늘리려면 버전을 DB 의 버전 행처럼 공유하는 곳에 두고 쓰기 트랜잭션에서 함께 올려야 한다.
+ */
+@Component
+public class MemberDataVersion {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * 현재 버전과 요청 값(엔드포인트, 검색 조건, pageable 등)으로 만든 ETag 값.
+     */
+    public String etag(Object... request) {
+        StringBuilder key = new StringBuilder();
+        for (Object value : request) {
+            key.append(value).append('|');
+        }
+        String digest = DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+        return "\"" + Long.toHexString(epoch) + "-" + version.get() + "-" + digest + "\"";
+    }
+}
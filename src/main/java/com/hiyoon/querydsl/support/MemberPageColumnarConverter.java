@@ -0,0 +1,174 @@
+package com.hiyoon.querydsl.support;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page&lt;MemberTeamDto&gt; 를 컬럼 배열로 쓰는 JSON 형식. (Accept: application/vnd.hiyoon.member-page.columnar+json 또는 ?format=columnar)
+ *
+ * <pre>
+ * {"content":{"memberId":[1,2,3],"username":["member1","member2","member3"],"age":[10,20,30],"teamId":[1,1,null],
+ *             "teamName":{"values":["teamA"],"index":[0,0,null]}},
+ *  "number":0,"size":20,"numberOfElements":3,"totalElements":3,"totalPages":1}
+ * </pre>
+ *
+ * 행마다 키를 반복하지 않고, 반복되는 팀 이름은 values 에 한 번만 쓰고 행에는 그 위치만 쓴다.
+ * Jackson 데이터 바인딩 없이 JsonGenerator 로 바로 쓰고, Pageable / Sort 블록 대신 페이지 숫자만 남긴다.
+ *
+ * 요청이 이 형식을 명시했을 때만 쓴다. 미디어 타입 없이 묻는 경우(쓸 수 있는 타입 계산)에는 false 를 돌려서
+ * Accept 가 없거나 *&#47;* 인 요청은 지금처럼 Jackson 의 application/json 을 받는다.
+ * (명시한 경우에는 Jackson 의 application/*+json 과 맞아서 선택되고, 이 컨버터가 Jackson 보다 앞에 있어서 쓰게 된다)
+ */
+public class MemberPageColumnarConverter extends AbstractGenericHttpMessageConverter<Page<?>> {
+
+    public static final String FORMAT = "columnar";
+    public static final MediaType APPLICATION_COLUMNAR_JSON = MediaType.parseMediaType("application/vnd.hiyoon.member-page.columnar+json");
+
+    private final ObjectMapper objectMapper;
+
+    public MemberPageColumnarConverter(ObjectMapper objectMapper) {
+        super(APPLICATION_COLUMNAR_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return mediaType != null && !mediaType.isWildcardSubtype()
+                && canWrite(clazz, mediaType) && isMemberTeamPage(type, clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(@Nullable MediaType mediaType) {
+        return false;
+    }
+
+    private static boolean isMemberTeamPage(@Nullable Type type, Class<?> clazz) {
+        ResolvableType page = (type == null ? ResolvableType.forClass(clazz) : ResolvableType.forType(type)).as(Page.class);
+        return page.getGeneric(0).resolve() == MemberTeamDto.class;
+    }
+
+    @Override
+    protected void writeInternal(Page<?> page, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        @SuppressWarnings("unchecked")
+        List<MemberTeamDto> content = (List<MemberTeamDto>) page.getContent();
+        // 응답 스트림은 서블릿 컨테이너가 닫는다. 제너레이터를 닫을 때는 flush 만 한다.
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("content");
+
+            generator.writeArrayFieldStart("memberId");
+            for (MemberTeamDto dto : content) {
+                writeNumber(generator, dto.getMemberId());
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("username");
+            for (MemberTeamDto dto : content) {
+                generator.writeString(dto.getUsername());
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("age");
+            for (MemberTeamDto dto : content) {
+                generator.writeNumber(dto.getAge());
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("teamId");
+            for (MemberTeamDto dto : content) {
+                writeNumber(generator, dto.getTeamId());
+            }
+            generator.writeEndArray();
+
+            writeTeamNames(generator, content);
+
+            generator.writeEndObject();
+            generator.writeNumberField("number", page.getNumber());
+            generator.writeNumberField("size", page.getSize());
+            generator.writeNumberField("numberOfElements", page.getNumberOfElements());
+            generator.writeNumberField("totalElements", page.getTotalElements());
+            generator.writeNumberField("totalPages", page.getTotalPages());
+            generator.writeEndObject();
+        }
+    }
+
+    // 처음 나온 순서대로 values 에 쓰고 행에는 values 의 위치를 쓴다. (팀이 없으면 null)
+    private static void writeTeamNames(JsonGenerator generator, List<MemberTeamDto> content) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        int[] index = new int[content.size()];
+        generator.writeObjectFieldStart("teamName");
+        generator.writeArrayFieldStart("values");
+        for (int i = 0; i < index.length; i++) {
+            String teamName = content.get(i).getTeamName();
+            if (teamName == null) {
+                index[i] = -1;
+                continue;
+            }
+            Integer position = dictionary.get(teamName);
+            if (position == null) {
+                position = dictionary.size();
+                dictionary.put(teamName, position);
+                generator.writeString(teamName);
+            }
+            index[i] = position;
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("index");
+        for (int position : index) {
+            if (position < 0) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(position);
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, @Nullable Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    @Override
+    public Page<?> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("columnar 형식은 응답에만 쓴다.", inputMessage);
+    }
+
+    @Override
+    protected Page<?> readInternal(Class<? extends Page<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("columnar 형식은 응답에만 쓴다.", inputMessage);
+    }
+}
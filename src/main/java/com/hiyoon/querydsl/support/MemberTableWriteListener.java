@@ -0,0 +1,39 @@
+package com.hiyoon.querydsl.support;
+
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * p6spy 로 member / team 테이블에 대한 insert, update, delete 문을 감지해서 {@link MemberDataChangedEvent} 를 발행한다.
+ * Hibernate 엔티티 이벤트가 발생하지 않는 벌크 연산(queryFactory.update(..).execute())이나 JDBC 직접 쓰기도 잡기 위함.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberTableWriteListener extends SimpleJdbcEventListener {
+
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(?:insert\\s+into|update|delete\\s+from|delete)\\s+(member|team)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final MemberDataChangePublisher publisher;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (e != null || sql == null) {
+            return;
+        }
+        Matcher matcher = WRITE.matcher(sql);
+        if (matcher.find()) {
+            publisher.publish("member".equalsIgnoreCase(matcher.group(1)) ? Member.class : Team.class);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.hiyoon.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Transactional(readOnly = true) 안에서 얻는 커넥션은 replica, 나머지는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 동기화되지 않으므로 LazyConnectionDataSourceProxy 로 감싸서
+ * 첫 SQL 을 실행할 때 커넥션을 고르게 해야 한다.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaStickiness stickiness;
+    private final ObjectProvider<MeterRegistry> registry;
+    private final Map<Route, Counter> counters = new EnumMap<>(Route.class);
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaStickiness stickiness,
+                                      ObjectProvider<MeterRegistry> registry) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.stickiness = stickiness;
+        this.registry = registry;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !stickiness.isSticky()
+                ? Route.REPLICA
+                : Route.PRIMARY;
+        counter(route).increment();
+        return route;
+    }
+
+    private Counter counter(Route route) {
+        synchronized (counters) {
+            return counters.computeIfAbsent(route, key -> Counter.builder("member.datasource.route")
+                    .tag("route", key.name().toLowerCase())
+                    .register(registry.getObject()));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.hiyoon.querydsl.support;
+
+import org.springframework.context.event.EventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Member / Team 에 쓰기가 일어난 뒤 window 동안은 읽기 전용 트랜잭션도 primary 로 보낸다. (read-your-writes)
+ * 복제 지연 동안 방금 쓴 값이 replica 에 없어서 안 보이는 것을 막는다.
+ * 요청/사용자 구분 없이 전역으로 판단하므로 쓰기가 잦으면 replica 를 덜 쓰게 된다.
+ */
+public class ReplicaStickiness {
+
+    private final Duration window;
+    private final Clock clock;
+    private volatile Instant lastWrite;
+
+    public ReplicaStickiness(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    // 쓰는 순간과 커밋이 끝난 뒤(afterCompletion)에 한 번씩 오므로 커밋 시점부터 window 를 센다.
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        lastWrite = clock.instant();
+    }
+
+    public boolean isSticky() {
+        Instant written = lastWrite;
+        return written != null && clock.instant().isBefore(written.plus(window));
+    }
+}
@@ -0,0 +1,99 @@
+package com.hiyoon.querydsl.support;
+
+import com.hiyoon.querydsl.dto.MemberCursorPage;
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.repository.MemberSearchShape;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepositoryCustom 구현체와 MemberJpaRepository 의 모든 public 메서드 실행 시간과 반환 row 수를 기록한다.
+ * method, 검색 조건 모양(shape) 태그로 어떤 조회가 느린지 구분할 수 있다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+    // 검색마다 builder 로 meter 를 찾지 않도록 태그 조합별로 한 번만 등록해 둔다. (method x shape x exception 은 몇 개 안 된다)
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Key, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.hiyoon.querydsl.repository.MemberRepositoryImpl.*(..))"
+            + " || execution(public * com.hiyoon.querydsl.repository.MemberJpaRepository.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        String shape = shapeOf(joinPoint.getArgs());
+        String exception = "none";
+
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            rowSummaries.computeIfAbsent(new Key(method, shape, null), key -> DistributionSummary.builder("member.repository.rows")
+                            .tag("method", key.method)
+                            .tag("shape", key.shape)
+                            .register(registry))
+                    .record(rows(result));
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timers.computeIfAbsent(new Key(method, shape, exception), key -> Timer.builder("member.repository")
+                            .tag("method", key.method)
+                            .tag("shape", key.shape)
+                            .tag("exception", key.exception)
+                            .register(registry))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String shapeOf(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                return MemberSearchShape.of((MemberSearchCondition) arg).toString();
+            }
+        }
+        return "n/a";
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Page) {
+            return ((Page<?>) result).getNumberOfElements();
+        }
+        if (result instanceof MemberCursorPage) {
+            return ((MemberCursorPage) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return result == null ? 0 : 1;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final String method;
+        private final String shape;
+        private final String exception;
+    }
+}
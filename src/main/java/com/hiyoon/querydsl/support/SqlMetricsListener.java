@@ -0,0 +1,59 @@
+package com.hiyoon.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * p6spy 로 실행된 SQL 문 수를 종류(select, insert, update, delete, other)별로 센다.
+ * DataSource 를 감싸는 시점에 만들어지므로 MeterRegistry 는 처음 쓸 때 가져온다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlMetricsListener extends SimpleJdbcEventListener {
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String type = typeOf(statementInformation.getSql());
+        counters.computeIfAbsent(type, key -> Counter.builder("member.sql.statements")
+                        .tag("type", key)
+                        .register(registry.getObject()))
+                .increment();
+    }
+
+    static String typeOf(String sql) {
+        if (sql == null) {
+            return "other";
+        }
+        String statement = sql.trim();
+        while (statement.startsWith("/*") && statement.contains("*/")) {
+            statement = statement.substring(statement.indexOf("*/") + 2).trim();
+        }
+        int end = 0;
+        while (end < statement.length() && Character.isLetter(statement.charAt(end))) {
+            end++;
+        }
+        String keyword = statement.substring(0, end).toLowerCase(Locale.ROOT);
+        switch (keyword) {
+            case "select":
+            case "insert":
+            case "update":
+            case "delete":
+                return keyword;
+            default:
+                return "other";
+        }
+    }
+}
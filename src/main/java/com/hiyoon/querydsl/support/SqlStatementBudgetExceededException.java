@@ -0,0 +1,10 @@
+package com.hiyoon.querydsl.support;
+
+import java.util.Map;
+
+public class SqlStatementBudgetExceededException extends RuntimeException {
+
+    public SqlStatementBudgetExceededException(String scope, int budget, Map<String, Integer> repeated) {
+        super("[" + scope + "] SQL 실행 허용 건수(" + budget + ")를 넘었습니다. 반복 실행된 SQL: " + repeated);
+    }
+}
@@ -0,0 +1,77 @@
+package com.hiyoon.querydsl.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * HTTP 요청 하나에서 실행되는 SQL 문 수를 센다. member.sql-budget.per-request 를 넘으면 경고(또는 실패)한다.
+ *
+ * /async 처럼 컨트롤러가 CompletableFuture 를 돌려주면 SQL 은 BoundedQueryExecutor 스레드에서 실행된다.
+ * 실행기가 이 구간을 작업 스레드로 넘기므로 함께 세고, 구간은 비동기 처리가 끝날 때(AsyncListener) 닫는다.
+ * 결과를 쓰는 async dispatch 는 다시 거치지 않는다. (OncePerRequestFilter 기본값)
+ */
+@Component
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    private final int perRequest;
+    private final boolean fail;
+
+    public SqlStatementBudgetFilter(@Value("${member.sql-budget.per-request:20}") int perRequest,
+                                    @Value("${member.sql-budget.fail:false}") boolean fail) {
+        this.perRequest = perRequest;
+        this.fail = fail;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open(name, perRequest, fail);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                scope.detach();
+                request.getAsyncContext().addListener(new ReportOnComplete(scope));
+            } else {
+                scope.close();
+            }
+        }
+    }
+
+    private static class ReportOnComplete implements AsyncListener {
+
+        private final SqlStatementCounter.Scope scope;
+
+        ReportOnComplete(SqlStatementCounter.Scope scope) {
+            this.scope = scope;
+        }
+
+        // 시간 초과, 오류로 끝나도 onComplete 는 불린다.
+        @Override
+        public void onComplete(AsyncEvent event) {
+            scope.report();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.hiyoon.querydsl.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 스레드별로 열린 구간(scope) 안에서 실행된 SQL 문을 센다. (p6spy 리스너가 {@link #record(String)} 를 호출)
+ * 구간은 중첩할 수 있고 열려 있는 모든 구간에 함께 기록된다. (HTTP 요청 > 트랜잭션 > 테스트)
+ * 다른 스레드에서 실행하는 작업은 {@link #propagate(Supplier)} 로 감싸야 제출한 스레드의 구간에 기록된다.
+ *
+ * <pre>
+ * try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("search")) {
+ *     memberRepository.search(condition);
+ *     assertThat(scope.count()).isEqualTo(1);
+ * }
+ * </pre>
+ */
+@Slf4j
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private SqlStatementCounter() {
+    }
+
+    public static Scope open(String name) {
+        return open(name, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * @param budget       구간에서 허용하는 SQL 문 수
+     * @param failOnExceed true 면 budget 을 넘는 SQL 문을 실행하기 전에 {@link SqlStatementBudgetExceededException} 을 던진다.
+     *                     false 면 구간을 닫을 때 경고 로그만 남긴다.
+     */
+    public static Scope open(String name, int budget, boolean failOnExceed) {
+        Scope scope = new Scope(name, budget, failOnExceed);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    /**
+     * 지금 스레드에 열린 구간을 task 를 실행하는 스레드에서도 열어 둔다. (BoundedQueryExecutor 가 사용)
+     * 여러 스레드가 같은 구간에 기록할 수 있으므로 Scope 는 기록을 동기화한다.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        List<Scope> scopes = new ArrayList<>(SCOPES.get());
+        if (scopes.isEmpty()) {
+            return task;
+        }
+        return () -> {
+            Deque<Scope> current = SCOPES.get();
+            // 바깥 구간부터 넣어서 제출한 스레드와 같은 순서로 쌓는다.
+            for (int i = scopes.size() - 1; i >= 0; i--) {
+                current.push(scopes.get(i));
+            }
+            try {
+                return task.get();
+            } finally {
+                scopes.forEach(current::remove);
+                if (current.isEmpty()) {
+                    SCOPES.remove();
+                }
+            }
+        };
+    }
+
+    static void record(String sql) {
+        for (Scope scope : SCOPES.get()) {
+            scope.record(sql);
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+        private final String name;
+        private final int budget;
+        private final boolean failOnExceed;
+        // SQL 문별 실행 횟수. 같은 문이 여러 번 실행되면 N+1 을 의심한다.
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+        private int count;
+
+        private Scope(String name, int budget, boolean failOnExceed) {
+            this.name = name;
+            this.budget = budget;
+            this.failOnExceed = failOnExceed;
+        }
+
+        private synchronized void record(String sql) {
+            count++;
+            statements.merge(String.valueOf(sql), 1, Integer::sum);
+            if (failOnExceed && count > budget) {
+                throw new SqlStatementBudgetExceededException(name, budget, repeated());
+            }
+        }
+
+        public synchronized int count() {
+            return count;
+        }
+
+        public synchronized Map<String, Integer> statements() {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(statements));
+        }
+
+        /**
+         * 두 번 이상 실행된 SQL 문 (N+1 후보)
+         */
+        public synchronized Map<String, Integer> repeated() {
+            return statements.entrySet().stream()
+                    .filter(entry -> entry.getValue() > 1)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        }
+
+        @Override
+        public void close() {
+            detach();
+            report();
+        }
+
+        /**
+         * 지금 스레드에서만 구간을 뗀다. 다른 스레드에 넘어간 작업은 계속 이 구간에 기록한다.
+         * 그 작업들이 끝나면 {@link #report()} 를 부른다. (비동기 요청)
+         */
+        public void detach() {
+            Deque<Scope> scopes = SCOPES.get();
+            scopes.remove(this);
+            if (scopes.isEmpty()) {
+                SCOPES.remove();
+            }
+        }
+
+        public void report() {
+            int executed = count();
+            if (executed > budget) {
+                log.warn("[{}] SQL {}건 실행 (허용 {}건). 반복 실행된 SQL: {}", name, executed, budget, repeated());
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.hiyoon.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 실행 직전의 SQL 문을 {@link SqlStatementCounter} 에 기록한다.
+ * 트랜잭션 안에서 처음 실행되는 SQL 이면 트랜잭션 단위 구간을 열고, 트랜잭션이 끝날 때 닫는다.
+ */
+@Component
+public class SqlStatementCountingListener extends SimpleJdbcEventListener {
+
+    private final int perTransaction;
+    private final boolean fail;
+
+    public SqlStatementCountingListener(@Value("${member.sql-budget.per-transaction:50}") int perTransaction,
+                                        @Value("${member.sql-budget.fail:false}") boolean fail) {
+        this.perTransaction = perTransaction;
+        this.fail = fail;
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        openTransactionScope();
+        SqlStatementCounter.record(statementInformation.getSql());
+    }
+
+    private void openTransactionScope() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.hasResource(SqlStatementCounter.class)) {
+            return;
+        }
+        String name = "transaction " + TransactionSynchronizationManager.getCurrentTransactionName();
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open(name, perTransaction, fail);
+        TransactionSynchronizationManager.bindResource(SqlStatementCounter.class, scope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SqlStatementCounter.class);
+                scope.close();
+            }
+        });
+    }
+}
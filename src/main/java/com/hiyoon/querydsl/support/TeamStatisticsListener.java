@@ -0,0 +1,268 @@
+package com.hiyoon.querydsl.support;
+
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member insert/update(나이, 팀 변경)/delete 를 team_statistics 에 증분으로 반영한다.
+ * 트랜잭션 동안의 변경은 세션마다 팀별 증감(TeamDelta)으로 모아 두고, flush 가 모두 끝난 커밋 직전에
+ * BeforeTransactionCompletionProcess 하나로 같은 트랜잭션, 같은 커넥션에서 팀마다 UPDATE 한 번으로 반영한다.
+ * 최소/최대는 그 팀에서 빠진 나이가 있을 때만, 팀마다 한 번 member 에서 다시 구한다.
+ * 벌크 update/delete 는 이벤트가 없으므로 TeamStatisticsService.rebuild 로 다시 만든다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamStatisticsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // 더해지기만 한 팀: 증감과 새 최소/최대만 반영한다.
+    private static final String APPLY = "update team_statistics set member_count = member_count + ?, age_sum = age_sum + ?,"
+            + " age_min = case when age_min is null or ? < age_min then ? else age_min end,"
+            + " age_max = case when age_max is null or ? > age_max then ? else age_max end"
+            + " where team_id = ?";
+    // 빠진 나이가 있는 팀: 경계값이 빠졌을 수 있으므로 최소/최대는 다시 구한다.
+    private static final String APPLY_RECOMPUTE_MIN_MAX = "update team_statistics"
+            + " set member_count = member_count + ?, age_sum = age_sum + ?,"
+            + " age_min = (select min(m.age) from member m where m.team_id = ?),"
+            + " age_max = (select max(m.age) from member m where m.team_id = ?)"
+            + " where team_id = ?";
+    private static final String INSERT = "insert into team_statistics (team_id, member_count, age_sum, age_min, age_max)"
+            + " values (?, 0, 0, null, null)";
+    private static final String RECOMPUTE = "update team_statistics"
+            + " set member_count = (select count(*) from member m where m.team_id = ?),"
+            + " age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = ?),"
+            + " age_min = (select min(m.age) from member m where m.team_id = ?),"
+            + " age_max = (select max(m.age) from member m where m.team_id = ?)"
+            + " where team_id = ?";
+    private static final String DELETE_TEAM = "delete from team_statistics where team_id = ?";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // 트랜잭션이 진행 중인 세션별 변경. 커밋/롤백이 끝나면 지운다.
+    private final Map<EventSource, TransactionDeltas> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Team) {
+            delta(event.getSession(), (Long) event.getId()).created = true;
+        } else if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getPersister(), event.getState());
+            if (teamId != null) {
+                delta(event.getSession(), teamId).add(age(event.getPersister(), event.getState()));
+            }
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long newTeamId = teamId(persister, event.getState());
+        int newAge = age(persister, event.getState());
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // 이전 값을 모르면(분리 상태에서 update) 새 팀만 다시 구한다. 이전 팀은 정합성 검사에서 바로잡힌다.
+            log.warn("member {} updated without old state, recompute team {}", event.getId(), newTeamId);
+            if (newTeamId != null) {
+                delta(event.getSession(), newTeamId).recompute = true;
+            }
+            return;
+        }
+
+        Long oldTeamId = teamId(persister, oldState);
+        int oldAge = age(persister, oldState);
+        if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+            return;
+        }
+        // 팀 변경(changeTeam)이나 나이 변경은 이전 값을 빼고 새 값을 더한다.
+        if (oldTeamId != null) {
+            delta(event.getSession(), oldTeamId).remove(oldAge);
+        }
+        if (newTeamId != null) {
+            delta(event.getSession(), newTeamId).add(newAge);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Team) {
+            delta(event.getSession(), (Long) event.getId()).deleted = true;
+        } else if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getPersister(), event.getDeletedState());
+            if (teamId != null) {
+                delta(event.getSession(), teamId).remove(age(event.getPersister(), event.getDeletedState()));
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private TeamDelta delta(EventSource session, Long teamId) {
+        return pending.computeIfAbsent(session, this::register).teams.computeIfAbsent(teamId, id -> new TeamDelta());
+    }
+
+    private TransactionDeltas register(EventSource session) {
+        // 트랜잭션마다 처음 바뀔 때 한 번만 등록한다.
+        TransactionDeltas deltas = new TransactionDeltas(session);
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) deltas);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) deltas);
+        return deltas;
+    }
+
+    private static void apply(Connection connection, Long teamId, TeamDelta delta) throws SQLException {
+        if (delta.deleted) {
+            execute(connection, DELETE_TEAM, teamId);
+            return;
+        }
+        if (delta.created) {
+            execute(connection, INSERT, teamId);
+        }
+        if (delta.recompute) {
+            recompute(connection, teamId);
+            return;
+        }
+        int updated;
+        if (delta.removed) {
+            updated = execute(connection, APPLY_RECOMPUTE_MIN_MAX, delta.count, delta.sum, teamId, teamId, teamId);
+        } else if (delta.min != null) {
+            updated = execute(connection, APPLY, delta.count, delta.sum, delta.min, delta.min, delta.max, delta.max, teamId);
+        } else {
+            return;
+        }
+        if (updated == 0) {
+            // 통계 행이 없던 팀 (rebuild 전 데이터 등)
+            recompute(connection, teamId);
+        }
+    }
+
+    private static void recompute(Connection connection, Long teamId) throws SQLException {
+        if (execute(connection, RECOMPUTE, teamId, teamId, teamId, teamId, teamId) == 0) {
+            execute(connection, INSERT, teamId);
+            execute(connection, RECOMPUTE, teamId, teamId, teamId, teamId, teamId);
+        }
+    }
+
+    private static int execute(Connection connection, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    /**
+     * 한 트랜잭션 동안 모은 팀별 증감. 커밋 직전에 한 번 반영하고, 커밋/롤백 뒤에 pending 에서 지운다.
+     */
+    private class TransactionDeltas implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final EventSource session;
+        // 세션은 한 스레드에서만 쓰이므로 동기화하지 않는다. 팀 id 순으로 반영해서 락 순서를 맞춘다.
+        private final Map<Long, TeamDelta> teams = new TreeMap<>();
+
+        TransactionDeltas(EventSource session) {
+            this.session = session;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor s) {
+            s.doWork(connection -> {
+                for (Map.Entry<Long, TeamDelta> entry : teams.entrySet()) {
+                    apply(connection, entry.getKey(), entry.getValue());
+                }
+            });
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor s) {
+            pending.remove(session);
+        }
+    }
+
+    private static class TeamDelta {
+
+        private boolean created;
+        private boolean deleted;
+        // 이전 값을 모르는 변경이 있어 팀 전체를 다시 구해야 한다.
+        private boolean recompute;
+        // 빠진 나이가 있어 최소/최대를 다시 구해야 한다.
+        private boolean removed;
+        private long count;
+        private long sum;
+        // 더해진 나이의 최소/최대
+        private Integer min;
+        private Integer max;
+
+        void add(int age) {
+            count++;
+            sum += age;
+            min = min == null ? age : Math.min(min, age);
+            max = max == null ? age : Math.max(max, age);
+        }
+
+        void remove(int age) {
+            count--;
+            sum -= age;
+            removed = true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.hiyoon.querydsl.config;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.repository.MemberJpaRepository;
+import com.hiyoon.querydsl.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * primary, replica 를 서로 다른 H2 메모리 DB 로 띄우고 복제는 하지 않는다.
+ * 어느 쪽에서 읽었는지는 한쪽에만 있는 회원으로 구분한다.
+ */
+@SpringBootTest(properties = {
+        "member.datasource.routing.enabled=true",
+        "member.datasource.routing.sticky-window=2s",
+        "member.datasource.primary.jdbc-url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "member.datasource.primary.username=sa",
+        "member.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "member.datasource.replica.username=sa",
+        "decorator.datasource.exclude-beans=primaryDataSource,replicaDataSource,lazyDataSource"
+})
+class DataSourceRoutingTest {
+
+    @TestConfiguration
+    static class ClockConfig {
+
+        @Bean
+        public TestClock testClock() {
+            return new TestClock();
+        }
+    }
+
+    // sticky-window 를 기다리지 않고 넘기기 위한 시계
+    static class TestClock extends Clock {
+
+        private volatile Instant now = Instant.now();
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TestClock clock;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    JdbcTemplate replica;
+
+    @BeforeEach
+    public void before() {
+        // Hibernate 가 primary 에만 만든 스키마를 replica 에 옮긴다.
+        replica = new JdbcTemplate(replicaDataSource);
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("SCRIPT NODATA", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        for (String statement : script) {
+            if (!statement.startsWith("--")) {
+                replica.execute(statement);
+            }
+        }
+        replica.update("insert into member (member_id, username, age) values (1000, 'replicaMember', 10)");
+
+        // 기동 중 스키마 생성 등으로 남은 sticky-window 를 넘긴다.
+        clock.advance(Duration.ofSeconds(3));
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void routingTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // 읽기 전용 -> replica
+        assertThat(memberJpaRepository.search(condition)).extracting(MemberTeamDto::getUsername)
+                .containsExactly("replicaMember");
+
+        // 쓰기 -> primary, 직후 읽기는 primary 에 붙는다.
+        memberRepository.save(new Member("primaryMember", 20));
+        assertThat(memberJpaRepository.search(condition)).extracting(MemberTeamDto::getUsername)
+                .containsExactly("primaryMember");
+
+        // sticky-window 가 지나면 다시 replica
+        clock.advance(Duration.ofMillis(2_500));
+        assertThat(memberJpaRepository.search(condition)).extracting(MemberTeamDto::getUsername)
+                .containsExactly("replicaMember");
+    }
+}
@@ -0,0 +1,167 @@
+package com.hiyoon.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.hiyoon.querydsl.support.MemberPageColumnarConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerColumnarTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40));
+    }
+
+    @Test
+    public void formatParameterTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v2/members?format=columnar&size=3"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberPageColumnarConverter.APPLICATION_COLUMNAR_JSON))
+                .andExpect(jsonPath("$.totalElements").value(4))
+                .andExpect(jsonPath("$.totalPages").value(2))
+                .andExpect(jsonPath("$.numberOfElements").value(3))
+                .andReturn();
+
+        JsonNode content = objectMapper.readTree(result.getResponse().getContentAsByteArray()).get("content");
+        assertThat(content.get("memberId")).hasSize(3);
+        assertThat(content.get("age")).hasSize(3);
+        assertThat(content.get("teamId")).hasSize(3);
+
+        List<String> values = new ArrayList<>();
+        content.get("teamName").get("values").forEach(value -> values.add(value.asText()));
+        List<String> teamNames = new ArrayList<>();
+        for (JsonNode position : content.get("teamName").get("index")) {
+            teamNames.add(position.isNull() ? null : values.get(position.asInt()));
+        }
+        // 팀 이름은 처음 나온 순서대로 한 번씩만 쓴다.
+        assertThat(values).containsExactlyElementsOf(teamNames.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        List<org.assertj.core.groups.Tuple> rows = new ArrayList<>();
+        for (int i = 0; i < teamNames.size(); i++) {
+            rows.add(tuple(content.get("username").get(i).asText(), content.get("age").get(i).asInt(), teamNames.get(i)));
+        }
+        assertThat(rows).isSubsetOf(
+                tuple("member1", 10, "teamA"),
+                tuple("member2", 20, "teamA"),
+                tuple("member3", 30, "teamB"),
+                tuple("member4", 40, null));
+    }
+
+    @Test
+    public void otherFormatParameterTest() throws Exception {
+        // columnar 가 아닌 format 값은 무시하고 Accept 로 고른다. (406 이 아니다)
+        mockMvc.perform(get("/v2/members?format=csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/teams/statistics?format=xml"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void acceptHeaderTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v2/members").accept(MemberPageColumnarConverter.APPLICATION_COLUMNAR_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberPageColumnarConverter.APPLICATION_COLUMNAR_JSON))
+                .andReturn();
+
+        JsonNode content = objectMapper.readTree(result.getResponse().getContentAsByteArray()).get("content");
+        JsonNode values = content.get("teamName").get("values");
+        assertThat(values).extracting(JsonNode::asText).containsExactlyInAnyOrder("teamA", "teamB");
+
+        // 열을 다시 행으로 맞춰 본다.
+        List<Object[]> rows = new ArrayList<>();
+        JsonNode index = content.get("teamName").get("index");
+        for (int i = 0; i < content.get("username").size(); i++) {
+            String teamName = index.get(i).isNull() ? null : values.get(index.get(i).asInt()).asText();
+            rows.add(new Object[]{content.get("username").get(i).asText(), content.get("age").get(i).asInt(), teamName});
+        }
+        assertThat(rows).extracting(row -> tuple(row[0], row[1], row[2])).containsExactlyInAnyOrder(
+                tuple("member1", 10, "teamA"),
+                tuple("member2", 20, "teamA"),
+                tuple("member3", 30, "teamB"),
+                tuple("member4", 40, null));
+    }
+
+    @Test
+    public void defaultFormatTest() throws Exception {
+        // Accept 가 없거나 application/json 이면 지금처럼 Page 를 그대로 쓴다.
+        mockMvc.perform(get("/v2/members"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content[0].username").exists())
+                .andExpect(jsonPath("$.pageable").exists());
+
+        mockMvc.perform(get("/v2/members").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void etagPerFormatTest() throws Exception {
+        String json = mockMvc.perform(get("/v2/members"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String columnar = mockMvc.perform(get("/v2/members?format=columnar"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(columnar).isNotEqualTo(json);
+    }
+
+    @Test
+    public void varyAcceptTest() throws Exception {
+        // 같은 URL 이 Accept 에 따라 다른 형식이므로 공유 캐시에 Vary: Accept 를 알린다.
+        mockMvc.perform(get("/v2/members").accept(MemberPageColumnarConverter.APPLICATION_COLUMNAR_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        mockMvc.perform(get("/v2/members"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+    }
+}
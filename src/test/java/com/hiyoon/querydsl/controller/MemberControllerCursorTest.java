@@ -0,0 +1,32 @@
+package com.hiyoon.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerCursorTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void badRequestTest() throws Exception {
+        mockMvc.perform(get("/v5/members"))
+                .andExpect(status().isOk());
+        // 잘못된 커서
+        mockMvc.perform(get("/v5/members?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        // 커서 페이징이 지원하지 않는 정렬
+        mockMvc.perform(get("/v5/members?sort=teamName"))
+                .andExpect(status().isBadRequest());
+    }
+}
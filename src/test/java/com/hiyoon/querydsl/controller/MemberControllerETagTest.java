@@ -0,0 +1,92 @@
+package com.hiyoon.querydsl.controller;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.hiyoon.querydsl.repository.MemberRepository;
+import com.hiyoon.querydsl.repository.TeamRepository;
+import com.hiyoon.querydsl.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 쓰기가 커밋된 뒤의 ETag 변화를 보므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerETagTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void notModifiedTest() throws Exception {
+        String etag = etag("/v2/members?teamName=teamA");
+
+        // 같은 버전, 같은 조건이면 SQL 없이 304
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("test")) {
+            mockMvc.perform(get("/v2/members?teamName=teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+            assertThat(scope.count()).isZero();
+        }
+
+        // 조건이나 페이지가 다르면 다른 ETag
+        assertThat(etag("/v2/members?teamName=teamA&page=1")).isNotEqualTo(etag);
+        assertThat(etag("/v3/members?teamName=teamA")).isNotEqualTo(etag);
+        // 빈 값은 조건이 없는 것과 같다.
+        assertThat(etag("/v2/members?teamName=teamA&username=")).isEqualTo(etag);
+    }
+
+    @Test
+    public void bulkUpdateChangesETagTest() throws Exception {
+        String etag = etag("/v2/members?teamName=teamA");
+
+        // 엔티티 이벤트가 없는 벌크 update 도 버전을 올린다.
+        memberRepository.bulkUpdate(new MemberSearchCondition(), update -> update.set(member.age, member.age.add(1)));
+
+        mockMvc.perform(get("/v2/members?teamName=teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertThat(etag("/v2/members?teamName=teamA")).isNotEqualTo(etag);
+    }
+
+    private String etag(String uri) throws Exception {
+        String etag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+}
@@ -0,0 +1,119 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static com.hiyoon.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class CountQueriesTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+    }
+
+    @Test
+    public void pruneUnusedLeftJoinTest() {
+        JPAQuery<Long> count = CountQueries.derive(queryFactory, queryFactory
+                .select(member.username, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20))
+                .orderBy(member.username.desc())
+                .offset(1)
+                .limit(2), member.id);
+
+        assertThat(count.getMetadata().getJoins()).hasSize(1);
+        assertThat(count.toString()).contains("count(member1.id)").doesNotContain("join").doesNotContain("order by");
+        assertThat(CountQueries.fetch(count)).isEqualTo(4);
+    }
+
+    @Test
+    public void keepReferencedLeftJoinTest() {
+        JPAQuery<Long> count = CountQueries.derive(queryFactory, queryFactory
+                .select(member.username, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA")), member.id);
+
+        assertThat(count.getMetadata().getJoins()).hasSize(2);
+        assertThat(CountQueries.fetch(count)).isEqualTo(2);
+    }
+
+    @Test
+    public void keepCollectionJoinTest() {
+        // 컬렉션 join 은 행 수를 바꾸므로 쓰지 않아도 남긴다.
+        JPAQuery<Team> content = queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member);
+        JPAQuery<Long> count = CountQueries.derive(queryFactory, content, team.id);
+
+        assertThat(count.getMetadata().getJoins()).hasSize(2);
+        assertThat(CountQueries.fetch(count)).isEqualTo(content.fetch().size());
+    }
+
+    @Test
+    public void fetchJoinTest() {
+        // count 쿼리에는 fetch join 을 쓸 수 없으므로 일반 join 으로 바꾼다.
+        JPAQuery<Long> count = CountQueries.derive(queryFactory, queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(team.name.eq("teamB")), member.id);
+
+        assertThat(count.getMetadata().getJoins().get(1).getFlags()).doesNotContain(JPAQueryMixin.FETCH);
+        assertThat(CountQueries.fetch(count)).isEqualTo(2);
+    }
+
+    @Test
+    public void groupByTest() {
+        assertThatThrownBy(() -> CountQueries.derive(queryFactory, queryFactory
+                .select(team.name, member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name), member.id))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void searchPageCountTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(2);
+        assertThat(memberRepository.searchPageExcutionUtils(condition, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(2);
+    }
+}
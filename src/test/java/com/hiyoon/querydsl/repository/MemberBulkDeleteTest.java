@@ -0,0 +1,127 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.MemberDeleteCheckpoint;
+import com.hiyoon.querydsl.entity.Team;
+import com.hiyoon.querydsl.support.MemberBulkWriteEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * bulkDelete 는 배치마다 커밋하므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다.
+ */
+@SpringBootTest(properties = {
+        "member.bulk.delete.batch-size=2",
+        "member.bulk.delete.rows-per-second=0",
+        "member.bulk.delete.pause=0ms"
+})
+@RecordApplicationEvents
+class MemberBulkDeleteTest {
+
+    @Autowired
+    ApplicationEvents events;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberDeleteCheckpointRepository checkpointRepository;
+
+    Member member2;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        member2 = memberRepository.save(new Member("member2", 20, teamA));
+        memberRepository.save(new Member("member3", 30, teamB));
+        memberRepository.save(new Member("member4", 40, teamB));
+        memberRepository.save(new Member("member5", 50, teamB));
+    }
+
+    @AfterEach
+    public void after() {
+        checkpointRepository.deleteAllInBatch();
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void bulkDeleteTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        MemberBulkResult result = memberRepository.bulkDelete("teamB", condition);
+
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(memberRepository.findAll()).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+
+        MemberDeleteCheckpoint checkpoint = checkpointRepository.findById("teamB").get();
+        assertThat(checkpoint.isCompleted()).isTrue();
+        assertThat(checkpoint.getDeletedRows()).isEqualTo(3);
+
+        // 끝난 작업은 다시 실행해도 아무것도 하지 않는다.
+        assertThat(memberRepository.bulkDelete("teamB", condition).getRows()).isZero();
+    }
+
+    @Test
+    public void bulkDeleteResumeTest() {
+        // member2 까지 지운 뒤에 죽은 작업
+        MemberSearchCondition condition = new MemberSearchCondition();
+        MemberDeleteCheckpoint crashed = new MemberDeleteCheckpoint("all", condition);
+        crashed.advance(member2.getId(), 2);
+        checkpointRepository.save(crashed);
+
+        MemberBulkResult result = memberRepository.bulkDelete("all", condition);
+
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(memberRepository.findAll()).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+        assertThat(checkpointRepository.findById("all").get().getDeletedRows()).isEqualTo(5);
+    }
+
+    @Test
+    public void bulkDeleteCompletedResumeTest() {
+        // 마지막 배치까지 커밋하고 이벤트를 보내기 전에 죽은 작업
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        MemberDeleteCheckpoint crashed = new MemberDeleteCheckpoint("teamB", condition.normalized());
+        crashed.advance(member2.getId() + 3, 3);
+        crashed.complete();
+        checkpointRepository.save(crashed);
+
+        // 이번에 지운 것은 없어도 체크포인트에 남은 삭제를 알린다.
+        assertThat(memberRepository.bulkDelete("teamB", condition).getRows()).isZero();
+        assertThat(events.stream(MemberBulkWriteEvent.class))
+                .extracting(MemberBulkWriteEvent::getOperation, MemberBulkWriteEvent::getRows)
+                .containsExactly(tuple("bulkDelete", 3L));
+    }
+
+    @Test
+    public void bulkDeleteOtherConditionTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        memberRepository.bulkDelete("job", condition);
+
+        condition.setTeamName("teamB");
+        assertThatThrownBy(() -> memberRepository.bulkDelete("job", condition))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+}
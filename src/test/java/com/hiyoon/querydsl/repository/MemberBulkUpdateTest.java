@@ -0,0 +1,158 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.hiyoon.querydsl.support.MemberBulkWriteEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * bulkUpdate 는 구간마다 커밋하므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다.
+ */
+@SpringBootTest(properties = "member.bulk.chunk-size=2")
+@RecordApplicationEvents
+class MemberBulkUpdateTest {
+
+    @Autowired
+    ApplicationEvents events;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    public void before() {
+        teamA = teamRepository.save(new Team("teamA"));
+        teamB = teamRepository.save(new Team("teamB"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+        memberRepository.save(new Member("member3", 30, teamB));
+        memberRepository.save(new Member("member4", 40, teamB));
+        memberRepository.save(new Member("member5", 50, teamB));
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void bulkUpdateTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeLoe(40);
+
+        MemberBulkResult result = memberRepository.bulkUpdate(condition,
+                update -> update.set(member.age, member.age.add(1)));
+
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(result.getChunks()).isEqualTo(1);
+        assertThat(memberRepository.findAll()).extracting("age").containsExactlyInAnyOrder(10, 20, 31, 41, 50);
+    }
+
+    @Test
+    public void bulkUpdateKeysetChunkTest() {
+        // teamA 회원의 id 사이사이에 teamB 회원을 넣어서 id 에 빈 곳을 만든다.
+        for (int i = 6; i <= 10; i++) {
+            memberRepository.save(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        MemberBulkResult result = memberRepository.bulkUpdate(condition,
+                update -> update.set(member.age, member.age.add(1)));
+
+        // 조건에 맞는 5건을 chunk-size(2) 건씩 나눈다. (id 범위로 나누면 빈 구간까지 돈다)
+        assertThat(result.getRows()).isEqualTo(5);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(memberRepository.findAll()).extracting("age")
+                .containsExactlyInAnyOrder(11, 21, 30, 40, 50, 61, 70, 81, 90, 101);
+    }
+
+    @Test
+    public void bulkUpdateRefreshesManagedMembersTest() {
+        // OSIV 처럼 요청 스레드에 영속성 컨텍스트를 묶어 둔다.
+        EntityManager em = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+        try {
+            Member member1 = memberRepository.findByUsername("member1").get(0);
+            Member member5 = memberRepository.findByUsername("member5").get(0);
+
+            MemberBulkResult result = memberRepository.bulkUpdate(new MemberSearchCondition(),
+                    update -> update.set(member.age, member.age.multiply(2)));
+
+            // id 구간 5개를 2개씩 나눠 3번
+            assertThat(result.getRows()).isEqualTo(5);
+            assertThat(result.getChunks()).isEqualTo(3);
+            assertThat(member1.getAge()).isEqualTo(20);
+            assertThat(member5.getAge()).isEqualTo(100);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            em.close();
+        }
+    }
+
+    @Test
+    public void bulkUpdateFailedChunkTest() {
+        AtomicInteger chunks = new AtomicInteger();
+
+        // 두 번째 구간에서 실패한다.
+        assertThatThrownBy(() -> memberRepository.bulkUpdate(new MemberSearchCondition(), update -> {
+            if (chunks.incrementAndGet() == 2) {
+                throw new IllegalStateException("chunk failed");
+            }
+            update.set(member.age, member.age.add(1));
+        })).hasRootCauseInstanceOf(IllegalStateException.class);
+
+        // 커밋된 첫 구간은 남고, 그 구간만큼 벌크 쓰기 이벤트가 나간다.
+        assertThat(memberRepository.findAll()).extracting("age").containsExactlyInAnyOrder(11, 21, 30, 40, 50);
+        assertThat(events.stream(MemberBulkWriteEvent.class))
+                .extracting(MemberBulkWriteEvent::getOperation, MemberBulkWriteEvent::getRows)
+                .containsExactly(tuple("bulkUpdate", 2L));
+    }
+
+    @Test
+    public void bulkUpdateInTransactionTest() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                memberRepository.bulkUpdate(new MemberSearchCondition(),
+                        update -> update.set(member.age, member.age.add(1)))))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.support.MemberDataChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountCacheTest {
+
+    MemberCountCache countCache = new MemberCountCache(100, Duration.ofMinutes(1));
+
+    @Test
+    public void cacheTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        AtomicInteger queries = new AtomicInteger();
+
+        assertThat(countCache.get(condition, () -> queries.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(countCache.get(condition, () -> queries.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(queries.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateDuringCountTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // count 하는 사이에 쓰기가 커밋되면 그 전 값은 캐시에 남기지 않는다.
+        long stale = countCache.get(condition, () -> {
+            countCache.invalidate(new MemberDataChangedEvent(Member.class));
+            return 2L;
+        });
+        assertThat(stale).isEqualTo(2);
+
+        assertThat(countCache.get(condition, () -> 3L)).isEqualTo(3);
+        assertThat(countCache.get(condition, () -> 4L)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,98 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberExportResult;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * StatelessSession 은 자기 커넥션으로 읽으므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다.
+ */
+@SpringBootTest
+class MemberExportTest {
+
+    @Autowired
+    MemberExporter memberExporter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @TempDir
+    Path directory;
+
+    Member member1;
+    Member member2;
+    Member member3;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        member1 = memberRepository.save(new Member("member1", 10, teamA));
+        member2 = memberRepository.save(new Member("kim, \"junior\"", 20, teamA));
+        member3 = memberRepository.save(new Member("member3", 30));
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void exportCsvTest() throws IOException {
+        Path file = directory.resolve("members.csv");
+
+        MemberExportResult result = memberExporter.export(file, MemberExporter.Format.CSV, false);
+
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getBytes()).isEqualTo(Files.size(file));
+        Long teamId = member1.getTeam().getId();
+        assertThat(Files.readAllLines(file)).containsExactly(
+                "member_id,username,age,team_id,team_name",
+                member1.getId() + ",member1,10," + teamId + ",teamA",
+                member2.getId() + ",\"kim, \"\"junior\"\"\",20," + teamId + ",teamA",
+                member3.getId() + ",member3,30,,");
+        assertThat(directory.resolve("members.csv.part")).doesNotExist();
+    }
+
+    @Test
+    public void exportNdjsonGzipTest() throws IOException {
+        Path file = directory.resolve("members.ndjson.gz");
+
+        MemberExportResult result = memberExporter.export(file, MemberExporter.Format.NDJSON, true);
+
+        assertThat(result.getRows()).isEqualTo(3);
+        Long teamId = member1.getTeam().getId();
+        assertThat(readGzip(file)).containsExactly(
+                "{\"memberId\":" + member1.getId() + ",\"username\":\"member1\",\"age\":10,\"teamId\":" + teamId + ",\"teamName\":\"teamA\"}",
+                "{\"memberId\":" + member2.getId() + ",\"username\":\"kim, \\\"junior\\\"\",\"age\":20,\"teamId\":" + teamId + ",\"teamName\":\"teamA\"}",
+                "{\"memberId\":" + member3.getId() + ",\"username\":\"member3\",\"age\":30,\"teamId\":null,\"teamName\":null}");
+    }
+
+    private static List<String> readGzip(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
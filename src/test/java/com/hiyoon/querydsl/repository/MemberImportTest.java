@@ -0,0 +1,111 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberBulkResult;
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.hiyoon.querydsl.service.TeamStatisticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * import 는 chunk 마다 커밋하므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다.
+ */
+@SpringBootTest(properties = {
+        "member.import.chunk-size=3",
+        "member.import.batch-size=2"
+})
+class MemberImportTest {
+
+    @Autowired
+    MemberImporter memberImporter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TeamStatisticsRepository teamStatisticsRepository;
+
+    @Autowired
+    TeamStatisticsService teamStatisticsService;
+
+    Team teamA;
+
+    @BeforeEach
+    public void before() {
+        teamA = teamRepository.save(new Team("teamA"));
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        teamStatisticsRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void importCsvTest() {
+        String csv = "username,age,team_name\r\n" +
+                "member1,10,teamA\r\n" +
+                "\"kim, \"\"junior\"\"\",20,teamB\r\n" +
+                "member3,30,\r\n" +
+                "member4,40,teamB\r\n";
+
+        MemberBulkResult result = memberImporter.importCsv(new StringReader(csv));
+
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(result.getChunks()).isEqualTo(2);
+        // teamB 는 첫 chunk 에서 한 번만 만들어진다.
+        assertThat(teamRepository.findAll()).extracting("name").containsExactlyInAnyOrder("teamA", "teamB");
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        List<MemberTeamDto> members = memberJpaRepository.search(condition);
+        assertThat(members).extracting("username", "age", "teamName").containsExactlyInAnyOrder(
+                tuple("member1", 10, "teamA"),
+                tuple("kim, \"junior\"", 20, "teamB"),
+                tuple("member3", 30, null),
+                tuple("member4", 40, "teamB"));
+
+        // 엔티티 이벤트가 없으므로 MemberBulkWriteEvent 로 다시 집계된다.
+        assertThat(teamStatisticsService.findAll()).extracting("teamName", "memberCount").containsExactlyInAnyOrder(
+                tuple("teamA", 1L),
+                tuple("teamB", 2L));
+
+        // JDBC 로 넣은 id 와 겹치지 않게 시퀀스를 이어서 쓴다.
+        memberRepository.save(new Member("member5", 50, teamA));
+        assertThat(memberRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    public void importCsvInvalidLineTest() {
+        String csv = "username,age\n" +
+                "member1,10\n" +
+                "member2,20\n" +
+                "member3,30\n" +
+                "member4,forty\n";
+
+        assertThatThrownBy(() -> memberImporter.importCsv(new StringReader(csv)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 5");
+
+        // 앞 chunk 는 커밋된 채로 남는다.
+        assertThat(memberRepository.count()).isEqualTo(3);
+    }
+}
@@ -4,12 +4,14 @@ import com.hiyoon.querydsl.dto.MemberSearchCondition;
 import com.hiyoon.querydsl.dto.MemberTeamDto;
 import com.hiyoon.querydsl.entity.Member;
 import com.hiyoon.querydsl.entity.Team;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -40,6 +42,22 @@ class MemberJpaRepositoryTest {
         assertThat(result2).contains(member);
     }
 
+    @Test
+    public void readOnlyTest() {
+        memberJpaRepository.save(new Member("member1", 10));
+        em.flush();
+        em.clear();
+
+        // 읽기 전용으로 읽은 엔티티는 스냅샷이 없어서 고쳐도 flush 되지 않는다.
+        Member readOnly = memberJpaRepository.findAll_Querydsl().get(0);
+        assertThat(em.unwrap(Session.class).isReadOnly(readOnly)).isTrue();
+        readOnly.setAge(20);
+        em.flush();
+        em.clear();
+
+        assertThat(memberJpaRepository.findByUsername("member1").get(0).getAge()).isEqualTo(10);
+    }
+
     @Test
     public void querydslTest() {
         Member member = new Member("member1", 10);
@@ -107,4 +125,52 @@ class MemberJpaRepositoryTest {
 
         assertThat(result).extracting("username").containsExactly(member4.getUsername());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchStreamTest() {
+        Team temaA = new Team("teamA");
+        Team temaB = new Team("teamB");
+        em.persist(temaA);
+        em.persist(temaB);
+
+        em.persist(new Member("member1", 10, temaA));
+        em.persist(new Member("member2", 20, temaA));
+        em.persist(new Member("member3", 30, temaB));
+        em.persist(new Member("member4", 40, temaB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.searchStream(condition, result::add);
+
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+        assertThat(result).isEqualTo(memberJpaRepository.search(condition));
+    }
+
+    @Test
+    public void searchAllShapesTest() {
+        Team temaA = new Team("teamA");
+        Team temaB = new Team("teamB");
+        em.persist(temaA);
+        em.persist(temaB);
+
+        em.persist(new Member("member1", 10, temaA));
+        em.persist(new Member("member2", 20, temaA));
+        em.persist(new Member("member3", 30, temaB));
+        em.persist(new Member("member4", 40, temaB));
+        em.persist(new Member("member5", 50));
+
+        // 16가지 조건 모양 모두 캐시된 JPQL 결과가 매번 만드는 쿼리(searchByBuilder) 결과와 같아야 한다.
+        for (int mask = 0; mask < 16; mask++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((mask & 1) != 0 ? "member3" : null);
+            condition.setTeamName((mask & 2) != 0 ? "teamB" : null);
+            condition.setAgeGoe((mask & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((mask & 8) != 0 ? 35 : null);
+
+            assertThat(memberJpaRepository.search(condition))
+                    .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByBuilder(condition));
+        }
+    }
+}
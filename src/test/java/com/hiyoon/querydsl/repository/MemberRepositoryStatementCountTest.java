@@ -0,0 +1,113 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.hiyoon.querydsl.support.SqlStatementAssertions.assertStatementCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberRepositoryStatementCountTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    public void before() {
+        Team temaA = new Team("teamA");
+        Team temaB = new Team("teamB");
+        em.persist(temaA);
+        em.persist(temaB);
+
+        em.persist(new Member("member1", 10, temaA));
+        em.persist(new Member("member2", 20, temaA));
+        em.persist(new Member("member3", 30, temaB));
+        em.persist(new Member("member4", 40, temaB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void search() {
+        assertStatementCount(1, () -> memberRepository.search(new MemberSearchCondition()));
+        assertStatementCount(1, () -> memberJpaRepository.search(new MemberSearchCondition()));
+    }
+
+    @Test
+    public void searchPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // content + count
+        assertStatementCount(2, () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)));
+        // 첫 페이지가 page size 보다 작으면 count 쿼리를 생략한다.
+        assertStatementCount(1, () -> memberRepository.searchPageExcutionUtils(condition, PageRequest.of(0, 10)));
+        assertStatementCount(1, () -> memberRepository.searchByCursor(condition, null, PageRequest.of(0, 2)));
+    }
+
+    @Test
+    public void searchMember_lazyTeam() {
+        // team 이 LAZY 라서 회원 조회 1번 + 팀들을 in 절로 한 번에 (default_batch_fetch_size)
+        assertStatementCount(2, () -> {
+            List<Member> members = memberJpaRepository.searchMember(new MemberSearchCondition());
+            members.forEach(m -> m.getTeam().getName());
+            return members;
+        });
+    }
+
+    @Test
+    public void searchMember_fetchTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<Member> fetchJoin = assertStatementCount(1, () -> {
+            List<Member> members = memberJpaRepository.searchMemberFetchJoin(condition);
+            members.forEach(m -> m.getTeam().getName());
+            return members;
+        });
+        em.clear();
+        List<Member> entityGraph = assertStatementCount(1, () -> {
+            List<Member> members = memberJpaRepository.searchMemberEntityGraph(condition);
+            members.forEach(m -> m.getTeam().getName());
+            return members;
+        });
+
+        assertThat(fetchJoin).extracting("username").containsExactly("member3", "member4");
+        assertThat(entityGraph).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void findAllWithMembers() {
+        // 팀 id 페이징 + members fetch join + count, 메모리 페이징 없이 members 까지 3번
+        Page<Team> page = assertStatementCount(3, () -> {
+            Page<Team> teams = teamRepository.findAllWithMembers(PageRequest.of(0, 1));
+            teams.forEach(t -> t.getMembers().size());
+            return teams;
+        });
+
+        assertThat(page.getContent()).extracting("name").containsExactly("teamA");
+        assertThat(page.getContent().get(0).getMembers()).extracting("username").containsExactly("member1", "member2");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+}
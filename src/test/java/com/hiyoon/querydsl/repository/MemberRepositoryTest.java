@@ -1,5 +1,6 @@
 package com.hiyoon.querydsl.repository;
 
+import com.hiyoon.querydsl.dto.MemberCursorPage;
 import com.hiyoon.querydsl.dto.MemberSearchCondition;
 import com.hiyoon.querydsl.dto.MemberTeamDto;
 import com.hiyoon.querydsl.entity.Member;
@@ -9,6 +10,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
@@ -26,6 +29,12 @@ class MemberRepositoryTest {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private MemberCountCache countCache;
+
     @Test
     public void basicTest() {
         Member member = new Member("member1", 10);
@@ -95,4 +104,81 @@ class MemberRepositoryTest {
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchByCursorTest() {
+        Team temaA = new Team("teamA");
+        Team temaB = new Team("teamB");
+        em.persist(temaA);
+        em.persist(temaB);
+
+        em.persist(new Member("member1", 10, temaA));
+        em.persist(new Member("member2", 20, temaA));
+        em.persist(new Member("member3", 30, temaB));
+        em.persist(new Member("member4", 40, temaB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        MemberCursorPage first = memberRepository.searchByCursor(condition, null, pageRequest);
+        assertThat(first.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberCursorPage second = memberRepository.searchByCursor(condition, first.getNextCursor(), pageRequest);
+        assertThat(second.getContent()).extracting("username").containsExactly("member1");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchPageCountCacheTest() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        for (int i = 1; i <= 4; i++) {
+            memberRepository.save(new Member("member" + i, i * 10, teamA));
+        }
+
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamA");
+            PageRequest pageRequest = PageRequest.of(1, 2);
+
+            long misses = countCache.stats().missCount();
+            long hits = countCache.stats().hitCount();
+
+            assertThat(memberRepository.searchPageExcutionUtils(condition, pageRequest).getTotalElements()).isEqualTo(4);
+            assertThat(memberRepository.searchPageExcutionUtils(condition, pageRequest).getTotalElements()).isEqualTo(4);
+            assertThat(countCache.stats().missCount() - misses).isEqualTo(1);
+            assertThat(countCache.stats().hitCount() - hits).isEqualTo(1);
+
+            // 쓰기가 일어나면 캐시가 비워져서 다시 센다.
+            memberRepository.save(new Member("member5", 50, teamA));
+
+            assertThat(memberRepository.searchPageExcutionUtils(condition, pageRequest).getTotalElements()).isEqualTo(5);
+        } finally {
+            memberRepository.deleteAllInBatch();
+            teamRepository.deleteAllInBatch();
+        }
+    }
+
+    @Test
+    public void searchPageCountCacheWriteTransactionTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 4; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        PageRequest pageRequest = PageRequest.of(1, 2);
+
+        long requests = countCache.stats().requestCount();
+
+        // 쓰기 트랜잭션 안에서는 캐시를 거치지 않고 매번 센다.
+        assertThat(memberRepository.searchPageExcutionUtils(condition, pageRequest).getTotalElements()).isEqualTo(4);
+        em.persist(new Member("member5", 50, teamA));
+        assertThat(memberRepository.searchPageExcutionUtils(condition, pageRequest).getTotalElements()).isEqualTo(5);
+        assertThat(countCache.stats().requestCount()).isEqualTo(requests);
+    }
+}
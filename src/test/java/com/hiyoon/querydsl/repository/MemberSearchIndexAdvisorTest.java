@@ -0,0 +1,30 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.repository.MemberSearchIndexAdvisor.Advice;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberSearchIndexAdvisorTest {
+
+    @Autowired
+    MemberSearchIndexAdvisor advisor;
+
+    @Test
+    public void memberIndexTest() {
+        List<Advice> advices = advisor.explainAll();
+
+        assertThat(advices).hasSize(15);
+        for (Advice advice : advices) {
+            // 팀 이름만 있는 모양도 inner join 이라 team 을 idx_team_name 으로 찾고 member 는 team_id 로 붙인다.
+            assertThat(advice.getScannedTables())
+                    .as("shape=%s plan=%s", advice.getShape(), advice.getPlan())
+                    .doesNotContain("PUBLIC.MEMBER");
+        }
+    }
+}
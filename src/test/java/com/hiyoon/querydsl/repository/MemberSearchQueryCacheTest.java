@@ -0,0 +1,60 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.search.query-cache.sample-every=1",
+        "member.search.query-cache.warmup-samples=2"
+})
+@Transactional
+class MemberSearchQueryCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueryCache searchQueryCache;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+    }
+
+    @Test
+    public void savedTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        Timer saved = registry.get("member.search.query.saved").timer();
+        long recorded = saved.count();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(searchQueryCache.search(condition)).extracting("username").containsExactly("member2");
+        }
+
+        // 표본 2개는 워밍업으로 버리고, 그 뒤 요청마다 추정치만큼 아낀 시간을 기록한다.
+        assertThat(searchQueryCache.estimatedBuildNanos()).isPositive();
+        assertThat(saved.count() - recorded).isEqualTo(3);
+        assertThat(saved.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+    }
+}
@@ -0,0 +1,104 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.dto.MemberTeamDto;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "member.result-cache.enabled=true")
+class MemberSearchResultCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberSearchResultCache resultCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void bulkUpdateInvalidatesCacheTest() {
+        long hits = resultCache.stats().hitCount();
+        List<MemberTeamDto> first = memberRepository.search(condition);
+        List<MemberTeamDto> second = memberRepository.search(condition);
+        assertThat(second).isEqualTo(first);
+        assertThat(resultCache.stats().hitCount() - hits).isEqualTo(1);
+
+        // 엔티티 이벤트가 없는 벌크 연산도 캐시를 비운다.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        assertThat(memberRepository.search(condition)).extracting("age").containsExactlyInAnyOrder(11, 21);
+    }
+
+    @Test
+    public void cachedRowsAreCopiedTest() {
+        List<MemberTeamDto> first = memberRepository.search(condition);
+        first.get(0).setUsername("changed");
+
+        List<MemberTeamDto> second = memberRepository.search(condition);
+        second.get(1).setAge(99);
+
+        assertThat(memberRepository.search(condition)).extracting("username", "age")
+                .containsExactlyInAnyOrder(
+                        tuple("member1", 10),
+                        tuple("member2", 20));
+    }
+
+    @Test
+    public void writeTransactionBypassesCacheTest() {
+        long requests = resultCache.stats().requestCount();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(memberRepository.search(condition)).hasSize(2);
+            em.persist(new Member("member3", 30, teamRepository.findByName("teamA").get()));
+            assertThat(memberRepository.search(condition)).hasSize(3);
+            status.setRollbackOnly();
+        });
+
+        assertThat(resultCache.stats().requestCount()).isEqualTo(requests);
+        assertThat(memberRepository.search(condition)).hasSize(2);
+    }
+}
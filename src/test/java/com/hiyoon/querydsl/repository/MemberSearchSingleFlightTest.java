@@ -0,0 +1,158 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSearchSingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberSearchSingleFlight singleFlight = new MemberSearchSingleFlight(registry, Duration.ofSeconds(5));
+
+    @Test
+    public void coalesceTest() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                // 빈 문자열과 null 은 같은 조건이다.
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setTeamName("teamA");
+                condition.setUsername(i % 2 == 0 ? "" : null);
+                results.add(callers.submit(() -> singleFlight.execute("search", condition, PageRequest.of(0, 10), () -> {
+                    queries.incrementAndGet();
+                    await(release);
+                    return List.of("member1", "member2");
+                })));
+            }
+            awaitCount("coalesced", CALLERS - 1);
+            release.countDown();
+
+            for (Future<List<String>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).containsExactly("member1", "member2");
+            }
+            assertThat(queries.get()).isEqualTo(1);
+            assertThat(count("executed")).isEqualTo(1);
+            assertThat(count("coalesced")).isEqualTo(CALLERS - 1);
+            assertThat(registry.get("member.search.single-flight.in-flight").gauge().value()).isZero();
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failureIsSharedTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            Future<Object> leader = callers.submit(() -> singleFlight.execute("search", condition, null, () -> {
+                await(release);
+                throw new IllegalStateException("query failed");
+            }));
+            awaitInFlight();
+            Future<Object> follower = callers.submit(() -> singleFlight.execute("search", condition, null, () -> "not called"));
+            awaitCount("coalesced", 1);
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+
+            // 실패한 조회는 남지 않으므로 다음 호출은 새로 조회한다.
+            assertThat(singleFlight.execute("search", condition, null, () -> "retried")).isEqualTo("retried");
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void followerTimeoutFallsBackToQueryTest() throws Exception {
+        registry = new SimpleMeterRegistry();
+        singleFlight = new MemberSearchSingleFlight(registry, Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            Future<Object> leader = callers.submit(() -> singleFlight.execute("search", condition, null, () -> {
+                await(release);
+                return "leader";
+            }));
+            awaitInFlight();
+
+            // 먼저 온 조회가 끝나지 않아도 기다리던 호출은 직접 조회해서 돌아온다.
+            assertThat(singleFlight.execute("search", condition, null, () -> "direct")).isEqualTo("direct");
+            assertThat(count("timed-out")).isEqualTo(1);
+
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void writeTransactionIsNotCoalescedTest() {
+        // 쓰기 트랜잭션 안에서는 flush 전 변경이 보여야 하므로 항상 직접 조회한다.
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            String result = singleFlight.execute("search", condition, null, () -> {
+                assertThat(registry.get("member.search.single-flight.in-flight").gauge().value()).isZero();
+                return "direct";
+            });
+            assertThat(result).isEqualTo("direct");
+            assertThat(count("executed")).isEqualTo(1);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private double count(String result) {
+        return registry.get("member.search.single-flight").tag("result", result).counter().count();
+    }
+
+    private void awaitCount(String result, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(result) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(count(result)).isEqualTo(expected);
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("member.search.single-flight.in-flight").gauge().value() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
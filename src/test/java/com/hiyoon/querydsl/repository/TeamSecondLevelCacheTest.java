@@ -0,0 +1,90 @@
+package com.hiyoon.querydsl.repository;
+
+import com.hiyoon.querydsl.config.HibernateCacheConfig;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 트랜잭션(= 영속성 컨텍스트)마다 새로 읽어서 2차 캐시 영역의 hit/miss 를 확인한다.
+ */
+@SpringBootTest
+class TeamSecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    SessionFactory sessionFactory;
+    Statistics statistics;
+    TransactionTemplate transactionTemplate;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        memberId = memberRepository.save(new Member("member1", 10, teamA)).getId();
+
+        sessionFactory = emf.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void teamCacheTest() {
+        // 처음엔 DB 에서 읽어서 캐시에 넣고, 다음 영속성 컨텍스트부터는 캐시에서 꺼낸다.
+        String first = transactionTemplate.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+        String second = transactionTemplate.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+
+        assertThat(first).isEqualTo("teamA");
+        assertThat(second).isEqualTo("teamA");
+        CacheRegionStatistics team = statistics.getDomainDataRegionStatistics(HibernateCacheConfig.TEAM_REGION);
+        assertThat(team.getMissCount()).isEqualTo(1);
+        assertThat(team.getPutCount()).isEqualTo(1);
+        assertThat(team.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void teamQueryCacheTest() {
+        assertThat(teamRepository.findByName("teamA")).isPresent();
+        assertThat(teamRepository.findByName("teamA")).isPresent();
+
+        CacheRegionStatistics query = statistics.getQueryRegionStatistics(HibernateCacheConfig.TEAM_QUERY_REGION);
+        assertThat(query.getMissCount()).isEqualTo(1);
+        assertThat(query.getPutCount()).isEqualTo(1);
+        assertThat(query.getHitCount()).isEqualTo(1);
+    }
+}
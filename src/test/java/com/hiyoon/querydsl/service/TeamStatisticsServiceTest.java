@@ -0,0 +1,172 @@
+package com.hiyoon.querydsl.service;
+
+import com.hiyoon.querydsl.dto.TeamStatisticsDto;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.hiyoon.querydsl.repository.MemberRepository;
+import com.hiyoon.querydsl.repository.TeamRepository;
+import com.hiyoon.querydsl.repository.TeamStatisticsRepository;
+import com.hiyoon.querydsl.support.SqlStatementCounter;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.hiyoon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 통계는 커밋 직전에 반영되므로 테스트 트랜잭션 없이 커밋하면서 검증한다.
+ */
+@SpringBootTest
+class TeamStatisticsServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TeamStatisticsRepository teamStatisticsRepository;
+
+    @Autowired
+    TeamStatisticsService teamStatisticsService;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        teamStatisticsRepository.deleteAllInBatch();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        teamStatisticsRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void incrementalTest() {
+        assertStatistics(tuple("teamA", 2L, 30L, 10, 20), tuple("teamB", 2L, 70L, 30, 40));
+
+        // 팀 변경
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member2 = memberRepository.findByUsername("member2").get(0);
+            member2.changeTeam(teamRepository.findByName("teamB").get());
+        });
+        assertStatistics(tuple("teamA", 1L, 10L, 10, 10), tuple("teamB", 3L, 90L, 20, 40));
+
+        // 나이 변경
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findByUsername("member1").get(0).setAge(50));
+        assertStatistics(tuple("teamA", 1L, 50L, 50, 50), tuple("teamB", 3L, 90L, 20, 40));
+
+        // 최대값 삭제 -> 최대값을 다시 구한다.
+        transactionTemplate.executeWithoutResult(status ->
+                em.remove(memberRepository.findByUsername("member4").get(0)));
+        assertStatistics(tuple("teamA", 1L, 50L, 50, 50), tuple("teamB", 2L, 50L, 20, 30));
+
+        assertThat(teamStatisticsService.check()).isEmpty();
+    }
+
+    @Test
+    public void batchedPerTeamTest() {
+        // 한 트랜잭션에서 같은 팀을 여러 번 바꿔도 커밋 직전에 팀마다 UPDATE 한 번으로 반영한다.
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("batchedPerTeamTest")) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Team teamA = teamRepository.findByName("teamA").get();
+                em.persist(new Member("member5", 5, teamA));
+                em.persist(new Member("member6", 60, teamA));
+                em.flush();
+                em.persist(new Member("member7", 15, teamA));
+                em.remove(memberRepository.findByUsername("member4").get(0));
+                memberRepository.findByUsername("member3").get(0).setAge(35);
+            });
+
+            Map<String, Integer> statistics = scope.statements().entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith("update team_statistics"))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+            assertThat(statistics.values()).containsExactly(1, 1);
+        }
+        assertStatistics(tuple("teamA", 5L, 110L, 5, 60), tuple("teamB", 1L, 35L, 35, 35));
+        assertThat(teamStatisticsService.check()).isEmpty();
+    }
+
+    @Test
+    public void rebuildAfterBulkUpdateTest() {
+        // 엔티티 이벤트가 없는 벌크 연산은 통계에 반영되지 않는다.
+        transactionTemplate.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+        assertThat(teamStatisticsService.check()).hasSize(2);
+
+        teamStatisticsService.rebuild();
+
+        assertThat(teamStatisticsService.check()).isEmpty();
+        assertStatistics(tuple("teamA", 2L, 32L, 11, 21), tuple("teamB", 2L, 72L, 31, 41));
+    }
+
+    @Test
+    public void repairMismatchesTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            new JPAQueryFactory(em)
+                    .update(member)
+                    .set(member.age, member.age.add(1))
+                    .where(member.username.eq("member1"))
+                    .execute();
+            // 통계 행이 없는 팀, 없어진 팀의 통계 행
+            em.createNativeQuery("delete from team_statistics where team_id = ?")
+                    .setParameter(1, teamRepository.findByName("teamB").get().getId())
+                    .executeUpdate();
+            em.createNativeQuery("insert into team_statistics (team_id, member_count, age_sum, age_min, age_max) values (-1, 1, 1, 1, 1)")
+                    .executeUpdate();
+        });
+        List<Long> mismatches = teamStatisticsService.check();
+        assertThat(mismatches).containsExactlyInAnyOrder(
+                teamRepository.findByName("teamA").get().getId(),
+                teamRepository.findByName("teamB").get().getId(),
+                -1L);
+
+        assertThat(teamStatisticsService.repair(mismatches)).isEqualTo(3);
+
+        assertThat(teamStatisticsService.check()).isEmpty();
+        assertStatistics(tuple("teamA", 2L, 31L, 11, 20), tuple("teamB", 2L, 70L, 30, 40));
+    }
+
+    private void assertStatistics(org.assertj.core.groups.Tuple... expected) {
+        List<TeamStatisticsDto> statistics = teamStatisticsService.findAll();
+        assertThat(statistics)
+                .extracting("teamName", "memberCount", "ageSum", "ageMin", "ageMax")
+                .containsExactly(expected);
+    }
+}
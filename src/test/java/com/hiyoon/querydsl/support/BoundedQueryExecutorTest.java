@@ -0,0 +1,77 @@
+package com.hiyoon.querydsl.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedQueryExecutorTest {
+
+    @Test
+    public void rejectWhenQueueIsFullTest() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedQueryExecutor executor = new BoundedQueryExecutor("test", 1, 1, new ThreadPoolExecutor.AbortPolicy());
+        executor.bindTo(registry);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> running = executor.submit(() -> {
+                started.countDown();
+                await(release);
+                return "running";
+            });
+            started.await();
+            CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+            // 스레드 1개, 대기열 1개가 모두 찼다.
+            assertThatThrownBy(() -> executor.submit(() -> "rejected"))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(registry.get("member.executor.queue").tag("name", "test").gauge().value()).isEqualTo(1);
+            assertThat(registry.get("member.executor.rejected").tag("name", "test").functionCounter().count()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(running.get()).isEqualTo("running");
+            assertThat(queued.get()).isEqualTo("queued");
+            assertThat(registry.get("member.executor.wait").tag("name", "test").timer().count()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void propagateSqlStatementScopeTest() throws Exception {
+        BoundedQueryExecutor executor = new BoundedQueryExecutor("test", 2, 10, new ThreadPoolExecutor.AbortPolicy());
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("request")) {
+            CompletableFuture<Void> first = executor.submit(() -> {
+                SqlStatementCounter.record("select 1");
+                return null;
+            });
+            CompletableFuture<Void> second = executor.submit(() -> {
+                SqlStatementCounter.record("select 1");
+                return null;
+            });
+            CompletableFuture.allOf(first, second).get();
+
+            assertThat(scope.count()).isEqualTo(2);
+            assertThat(scope.repeated()).containsEntry("select 1", 2);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
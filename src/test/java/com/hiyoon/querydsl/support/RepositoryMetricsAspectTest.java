@@ -0,0 +1,112 @@
+package com.hiyoon.querydsl.support;
+
+import com.hiyoon.querydsl.dto.MemberSearchCondition;
+import com.hiyoon.querydsl.entity.Member;
+import com.hiyoon.querydsl.entity.Team;
+import com.hiyoon.querydsl.repository.MemberJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchPageSimpleTest() throws Exception {
+        long calls = timerCount("searchPageSimple", "teamName", "none");
+        double rows = rowsTotal("searchPageSimple", "teamName");
+        double selects = selectCount();
+
+        mockMvc.perform(get("/v2/members?teamName=teamA"))
+                .andExpect(status().isOk());
+
+        // Spring Data 프래그먼트(MemberRepositoryImpl) 호출이 method, shape 태그로 기록된다.
+        assertThat(timerCount("searchPageSimple", "teamName", "none")).isEqualTo(calls + 1);
+        assertThat(rowsTotal("searchPageSimple", "teamName")).isEqualTo(rows + 2);
+        assertThat(selectCount()).isGreaterThan(selects);
+    }
+
+    @Test
+    public void memberJpaRepositoryTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(20);
+        long calls = timerCount("search", "teamName+ageGoe", "none");
+        double rows = rowsTotal("search", "teamName+ageGoe");
+
+        assertThat(memberJpaRepository.search(condition)).hasSize(1);
+
+        assertThat(timerCount("search", "teamName+ageGoe", "none")).isEqualTo(calls + 1);
+        assertThat(rowsTotal("search", "teamName+ageGoe")).isEqualTo(rows + 1);
+    }
+
+    @Test
+    public void exceptionTagTest() throws Exception {
+        long calls = timerCount("searchByCursor", "none", "IllegalArgumentException");
+
+        mockMvc.perform(get("/v5/members?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(timerCount("searchByCursor", "none", "IllegalArgumentException")).isEqualTo(calls + 1);
+    }
+
+    private long timerCount(String method, String shape, String exception) {
+        Timer timer = registry.find("member.repository")
+                .tags("method", method, "shape", shape, "exception", exception)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double rowsTotal(String method, String shape) {
+        DistributionSummary summary = registry.find("member.repository.rows")
+                .tags("method", method, "shape", shape)
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    private double selectCount() {
+        Counter counter = registry.find("member.sql.statements").tag("type", "select").counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
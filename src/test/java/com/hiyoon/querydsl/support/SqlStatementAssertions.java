@@ -0,0 +1,25 @@
+package com.hiyoon.querydsl.support;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 리포지토리 메서드가 실행하는 SQL 문 수를 고정하는 테스트용 assertion.
+ * 쿼리 수가 늘어나면(N+1 등) 테스트가 깨진다.
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static <T> T assertStatementCount(int expected, Supplier<T> action) {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("test")) {
+            T result = action.get();
+            assertThat(scope.count())
+                    .as("실행된 SQL: %s", scope.statements())
+                    .isEqualTo(expected);
+            return result;
+        }
+    }
+}